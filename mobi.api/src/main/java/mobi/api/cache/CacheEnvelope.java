@@ -0,0 +1,57 @@
+package mobi.api.cache;
+
+/**
+ * Vỏ bọc giá trị được lưu trong cache, kèm thời điểm hết hạn logic và thời gian tính toán.
+ * Bản ghi trong Redis sống lâu hơn expiresAt một khoảng "stale grace" để các node khác
+ * có thể trả về giá trị cũ trong lúc một node đang nạp lại.
+ */
+public class CacheEnvelope {
+    private Object value;
+    // Thời điểm hết hạn logic (epoch millis)
+    private long expiresAt;
+    // Thời gian đã dùng để tính giá trị (millis), dùng cho làm mới sớm kiểu XFetch
+    private long computeMillis;
+
+    // Constructor rỗng cần cho việc deserialize từ Redis
+    public CacheEnvelope() {
+    }
+
+    public CacheEnvelope(Object value, long expiresAt, long computeMillis) {
+        this.value = value;
+        this.expiresAt = expiresAt;
+        this.computeMillis = computeMillis;
+    }
+
+    /**
+     * @param now Thời điểm hiện tại (epoch millis).
+     * @return true nếu giá trị đã quá hạn logic (nhưng có thể vẫn được dùng tạm).
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    // Getters and Setters
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public void setComputeMillis(long computeMillis) {
+        this.computeMillis = computeMillis;
+    }
+}
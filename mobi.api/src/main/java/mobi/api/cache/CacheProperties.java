@@ -0,0 +1,146 @@
+package mobi.api.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình cache hai tầng (L1 Caffeine trong bộ nhớ + L2 Redis), đọc từ tiền tố "mobi.cache".
+ * Ví dụ: mobi.cache.caches.productById.local-max-size=50000
+ */
+@ConfigurationProperties(prefix = "mobi.cache")
+public class CacheProperties {
+    // Kênh Redis pub/sub dùng để phát thông báo xóa cache L1 giữa các instance
+    private String invalidationChannel = "mobi:cache:invalidation";
+
+    // Thời gian bản ghi còn nằm trong Redis sau khi hết hạn logic, để trả giá trị cũ trong lúc nạp lại
+    private Duration staleGrace = Duration.ofSeconds(30);
+
+    // Thời hạn khóa thuê trên Redis khi một node nạp lại một khóa
+    private Duration leaseTtl = Duration.ofSeconds(5);
+
+    // Thời gian tối đa một node chờ node giữ khóa nạp xong trước khi tự nạp
+    private Duration leaseWait = Duration.ofSeconds(1);
+
+    // Hệ số beta của XFetch: càng lớn càng làm mới sớm
+    private double earlyRefreshBeta = 1.0;
+
+    // Giá trị cache (sau khi mã hóa Smile) từ kích thước này (byte) trở lên sẽ được nén LZ4
+    private int compressionThreshold = 1024;
+
+    // Cấu hình mặc định cho các cache không được khai báo riêng
+    private Spec defaults = new Spec();
+
+    // Cấu hình riêng theo tên cache
+    private Map<String, Spec> caches = new HashMap<>();
+
+    /**
+     * Lấy cấu hình của một cache, rơi về cấu hình mặc định nếu không khai báo riêng.
+     *
+     * @param cacheName Tên cache.
+     * @return Cấu hình của cache.
+     */
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    // Getters and Setters
+    public String getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    public void setInvalidationChannel(String invalidationChannel) {
+        this.invalidationChannel = invalidationChannel;
+    }
+
+    public Duration getStaleGrace() {
+        return staleGrace;
+    }
+
+    public void setStaleGrace(Duration staleGrace) {
+        this.staleGrace = staleGrace;
+    }
+
+    public Duration getLeaseTtl() {
+        return leaseTtl;
+    }
+
+    public void setLeaseTtl(Duration leaseTtl) {
+        this.leaseTtl = leaseTtl;
+    }
+
+    public Duration getLeaseWait() {
+        return leaseWait;
+    }
+
+    public void setLeaseWait(Duration leaseWait) {
+        this.leaseWait = leaseWait;
+    }
+
+    public double getEarlyRefreshBeta() {
+        return earlyRefreshBeta;
+    }
+
+    public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public Spec getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Spec defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Spec> getCaches() {
+        return caches;
+    }
+
+    public void setCaches(Map<String, Spec> caches) {
+        this.caches = caches;
+    }
+
+    /**
+     * Cấu hình của một cache: kích thước và TTL của L1, TTL của L2.
+     */
+    public static class Spec {
+        private long localMaxSize = 10_000;
+        private Duration localTtl = Duration.ofMinutes(1);
+        private Duration redisTtl = Duration.ofHours(1);
+
+        public long getLocalMaxSize() {
+            return localMaxSize;
+        }
+
+        public void setLocalMaxSize(long localMaxSize) {
+            this.localMaxSize = localMaxSize;
+        }
+
+        public Duration getLocalTtl() {
+            return localTtl;
+        }
+
+        public void setLocalTtl(Duration localTtl) {
+            this.localTtl = localTtl;
+        }
+
+        public Duration getRedisTtl() {
+            return redisTtl;
+        }
+
+        public void setRedisTtl(Duration redisTtl) {
+            this.redisTtl = redisTtl;
+        }
+    }
+}
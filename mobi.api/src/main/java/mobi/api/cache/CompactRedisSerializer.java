@@ -0,0 +1,129 @@
+package mobi.api.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Serializer giá trị cache dạng nhị phân gọn cho Redis.
+ * Định dạng: [version: 1 byte][flags: 1 byte][độ dài gốc: 4 byte, chỉ khi nén][payload Smile].
+ * Payload được nén LZ4 khi vượt ngưỡng kích thước. Byte version cho phép đổi định dạng an toàn khi rolling deploy:
+ * bản ghi JSON cũ (GenericJackson2JsonRedisSerializer) vẫn đọc được, còn version lạ được coi như cache miss.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    private static final Logger logger = LoggerFactory.getLogger(CompactRedisSerializer.class);
+
+    static final byte VERSION_1 = 1;
+    static final byte FLAG_LZ4 = 1;
+    private static final int HEADER_SIZE = 2;
+    // Giới hạn độ dài gốc đọc từ header: byte hỏng hoặc bị sửa trong Redis không được khiến cấp phát mảng khổng lồ
+    static final int MAX_UNCOMPRESSED_LENGTH = 32 * 1024 * 1024;
+
+    private final ObjectMapper mapper;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+    // Đọc các bản ghi JSON do phiên bản trước ghi vào Redis
+    private final GenericJackson2JsonRedisSerializer legacy = new GenericJackson2JsonRedisSerializer();
+
+    /**
+     * @param compressionThreshold Kích thước payload (byte) từ đó trở lên sẽ được nén LZ4.
+     */
+    public CompactRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        // Lưu kiểu của mọi giá trị giống GenericJackson2JsonRedisSerializer để đọc lại đúng lớp
+        SmileMapper smileMapper = new SmileMapper();
+        // Tương đương DefaultTyping.EVERYTHING (đã deprecated): ghi kiểu cho cả giá trị final như Long/String
+        TypeResolverBuilder<?> typing = new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL,
+                smileMapper.getPolymorphicTypeValidator()) {
+            @Override
+            public boolean useForType(JavaType type) {
+                return true;
+            }
+        };
+        smileMapper.setDefaultTyping(typing.init(JsonTypeInfo.Id.CLASS, null).inclusion(JsonTypeInfo.As.PROPERTY));
+        smileMapper.findAndRegisterModules();
+        smileMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.mapper = smileMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] payload;
+        try {
+            payload = mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+
+        if (payload.length < compressionThreshold) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+            buffer.put(VERSION_1).put((byte) 0).put(payload);
+            return buffer.array();
+        }
+
+        byte[] compressed = new byte[HEADER_SIZE + Integer.BYTES + compressor.maxCompressedLength(payload.length)];
+        int compressedLength = compressor.compress(payload, 0, payload.length, compressed, HEADER_SIZE + Integer.BYTES);
+        ByteBuffer.wrap(compressed).put(VERSION_1).put(FLAG_LZ4).putInt(payload.length);
+        return Arrays.copyOf(compressed, HEADER_SIZE + Integer.BYTES + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        byte version = bytes[0];
+        if (version == '{' || version == '[' || version == '"') {
+            return legacy.deserialize(bytes);
+        }
+        if (version != VERSION_1 || bytes.length < HEADER_SIZE) {
+            // Định dạng do phiên bản mới hơn ghi: bỏ qua để nạp lại từ DB thay vì làm hỏng request
+            logger.warn("Unknown cache value format version {}", version);
+            return null;
+        }
+
+        try {
+            if ((bytes[1] & FLAG_LZ4) == 0) {
+                return mapper.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, Object.class);
+            }
+            if (bytes.length < HEADER_SIZE + Integer.BYTES) {
+                throw new SerializationException("Truncated compressed cache value");
+            }
+            int originalLength = ByteBuffer.wrap(bytes, HEADER_SIZE, Integer.BYTES).getInt();
+            if (originalLength < 0 || originalLength > MAX_UNCOMPRESSED_LENGTH) {
+                throw new SerializationException("Invalid uncompressed length " + originalLength);
+            }
+            // Bộ giải nén "safe" không tin độ dài trong header và không đọc/ghi quá biên của mảng
+            byte[] payload = new byte[originalLength];
+            int length = decompressor.decompress(bytes, HEADER_SIZE + Integer.BYTES, bytes.length - HEADER_SIZE - Integer.BYTES,
+                    payload, 0, originalLength);
+            if (length != originalLength) {
+                throw new SerializationException("Decompressed " + length + " bytes, expected " + originalLength);
+            }
+            return mapper.readValue(payload, Object.class);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+}
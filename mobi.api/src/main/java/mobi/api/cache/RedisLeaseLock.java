@@ -0,0 +1,52 @@
+package mobi.api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Khóa thuê (lease lock) ngắn hạn trên Redis: SET key token NX PX ttl.
+ * Dùng để chỉ một node nạp lại một khóa cache tại một thời điểm; khóa tự hết hạn nếu node đó chết.
+ */
+public class RedisLeaseLock {
+    private static final Logger logger = LoggerFactory.getLogger(RedisLeaseLock.class);
+    // Chỉ xóa khóa nếu vẫn là của mình (so sánh token) để không xóa nhầm khóa của node khác
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLeaseLock(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Thử lấy khóa. Nếu Redis không truy cập được thì coi như lấy được để node này tự nạp dữ liệu.
+     *
+     * @return true nếu lấy được khóa.
+     */
+    public boolean tryAcquire(String lockKey, String token, Duration ttl) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, ttl));
+        } catch (Exception e) {
+            logger.warn("Cannot acquire lease {}: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Trả khóa nếu vẫn đang giữ.
+     */
+    public void release(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            logger.warn("Cannot release lease {}: {}", lockKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package mobi.api.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gộp các lần nạp đồng thời cùng một khóa trong một JVM thành một lần nạp duy nhất:
+ * luồng đến trước thực hiện nạp, các luồng đến sau chờ và dùng chung kết quả.
+ */
+public class SingleFlight {
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Thực hiện loader cho khóa, hoặc chờ kết quả của lần nạp đang diễn ra cho cùng khóa.
+     *
+     * @param key    Khóa cần nạp.
+     * @param loader Hàm nạp dữ liệu.
+     * @return Kết quả nạp.
+     */
+    public Object execute(String key, Callable<Object> loader) throws Exception {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        try {
+            Object value = loader.call();
+            mine.complete(value);
+            return value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package mobi.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache hai tầng: L1 là Caffeine trong bộ nhớ của instance, L2 là Redis dùng chung.
+ * Đọc: L1 -> L2 (nạp ngược vào L1) -> hàm nạp dữ liệu.
+ * Ghi/xóa: cập nhật cả hai tầng rồi phát thông báo qua Redis pub/sub để các instance khác xóa L1 của chúng.
+ * Khóa L1 là dạng chuỗi của khóa, giống cách RedisCache chuyển khóa, để thông báo xóa khớp được giữa các node.
+ *
+ * Chống "cache stampede" cho các @Cacheable(sync = true):
+ * - Trong một JVM, các lần miss đồng thời cùng khóa dùng chung một lần nạp (SingleFlight).
+ * - Giữa các node, khóa thuê Redis cho phép một node nạp; node khác chờ ngắn hoặc trả giá trị cũ.
+ * - Giá trị được lưu kèm hạn logic; Redis giữ thêm "stale grace" để phục vụ giá trị cũ khi đang làm mới.
+ * - Khóa sắp hết hạn (XFetch, theo xác suất) hoặc đã hết hạn được nạp lại ngay trên luồng gọi, mỗi khóa một luồng;
+ *   các lời gọi đồng thời nhận giá trị cũ trong lúc nạp. Không nạp ở luồng nền vì valueLoader của @Cacheable
+ *   gắn với lời gọi hiện tại (transaction, request, security context và tham số của nó).
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+    private static final long WAIT_POLL_MILLIS = 50;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final TwoLevelCacheManager manager;
+    private final Duration ttl;
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    // Các khóa đang được nạp lại trên node này; lời gọi khác cùng khóa trả giá trị cũ thay vì nạp trùng
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter staleServed;
+    private final Counter earlyRefreshes;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                         Duration ttl, TwoLevelCacheManager manager, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.ttl = ttl;
+        this.manager = manager;
+        this.localHits = counter(meterRegistry, "l1", "hit");
+        this.localMisses = counter(meterRegistry, "l1", "miss");
+        this.remoteHits = counter(meterRegistry, "l2", "hit");
+        this.remoteMisses = counter(meterRegistry, "l2", "miss");
+        this.staleServed = counter(meterRegistry, "l2", "stale");
+        this.earlyRefreshes = Counter.builder("mobi.cache.early.refreshes")
+                .description("Số lần làm mới trước khi hết hạn (XFetch)")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("mobi.cache.requests")
+                .description("Số lượt đọc cache theo tầng và kết quả")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CacheEnvelope envelope = lookupEnvelope(key);
+        return envelope != null && !envelope.isExpired(System.currentTimeMillis()) ? envelope.getValue() : null;
+    }
+
+    private CacheEnvelope lookupEnvelope(Object key) {
+        String localKey = localKey(key);
+        Object cached = local.getIfPresent(localKey);
+        if (cached instanceof CacheEnvelope envelope) {
+            localHits.increment();
+            return envelope;
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        // Giá trị không phải CacheEnvelope (ghi bởi phiên bản cũ) được coi như miss
+        if (wrapper == null || !(wrapper.get() instanceof CacheEnvelope envelope)) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey, envelope);
+        return envelope;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long now = System.currentTimeMillis();
+        CacheEnvelope envelope = lookupEnvelope(key);
+        if (envelope != null) {
+            boolean expired = envelope.isExpired(now);
+            if (expired || shouldRefreshEarly(envelope, now)) {
+                Object refreshed = refresh(key, valueLoader);
+                if (refreshed != null) {
+                    if (!expired) {
+                        earlyRefreshes.increment();
+                    }
+                    return (T) refreshed;
+                }
+                if (expired) {
+                    // Hết hạn logic nhưng còn trong thời gian grace: luồng/node khác đang nạp lại, trả giá trị cũ
+                    staleServed.increment();
+                }
+            }
+            return (T) fromStoreValue(envelope.getValue());
+        }
+
+        try {
+            return (T) singleFlight.execute(localKey(key), () -> loadCold(key, valueLoader));
+        } catch (ValueRetrievalException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    /**
+     * XFetch: làm mới sớm với xác suất tăng dần khi gần hết hạn, tỉ lệ với thời gian tính toán giá trị.
+     */
+    private boolean shouldRefreshEarly(CacheEnvelope envelope, long now) {
+        double gap = -envelope.getComputeMillis() * manager.getProperties().getEarlyRefreshBeta()
+                * Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= envelope.getExpiresAt();
+    }
+
+    /**
+     * Miss hoàn toàn: node lấy được khóa thuê sẽ nạp; node khác chờ ngắn kết quả trong Redis rồi mới tự nạp.
+     */
+    private Object loadCold(Object key, Callable<?> valueLoader) throws InterruptedException {
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        if (manager.getLeaseLock().tryAcquire(lockKey, token, manager.getProperties().getLeaseTtl())) {
+            try {
+                return loadAndStore(key, valueLoader);
+            } finally {
+                manager.getLeaseLock().release(lockKey, token);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + manager.getProperties().getLeaseWait().toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(WAIT_POLL_MILLIS);
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() instanceof CacheEnvelope envelope) {
+                local.put(localKey(key), envelope);
+                return envelope.getValue();
+            }
+        }
+        return loadAndStore(key, valueLoader);
+    }
+
+    /**
+     * Nạp lại khóa đã/sắp hết hạn ngay trên luồng gọi: mỗi khóa chỉ một luồng trên mỗi node, và chỉ node giữ khóa thuê
+     * mới thực sự nạp. Lỗi khi nạp lại không làm hỏng lời gọi vì vẫn còn giá trị cũ.
+     *
+     * @return Giá trị mới, hoặc null nếu lời gọi này không nạp lại (khi đó trả giá trị cũ).
+     */
+    private Object refresh(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        if (!refreshing.add(localKey)) {
+            return null;
+        }
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!manager.getLeaseLock().tryAcquire(lockKey, token, manager.getProperties().getLeaseTtl())) {
+                return null;
+            }
+            try {
+                return loadAndStore(key, valueLoader);
+            } finally {
+                manager.getLeaseLock().release(lockKey, token);
+            }
+        } catch (Exception e) {
+            logger.warn("Refresh failed for {}::{}, serving stale value: {}", name, localKey, e.getMessage());
+            return null;
+        } finally {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) {
+        long start = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            store(key, value, System.currentTimeMillis() - start);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value, 0);
+    }
+
+    private void store(Object key, Object value, long computeMillis) {
+        CacheEnvelope envelope = new CacheEnvelope(toStoreValue(value), System.currentTimeMillis() + ttl.toMillis(), computeMillis);
+        remote.put(key, envelope);
+        local.put(localKey(key), envelope);
+        manager.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        manager.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    /**
+     * Xóa một khóa khỏi L1 khi nhận thông báo từ instance khác (không đụng tới Redis).
+     */
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    /**
+     * Xóa toàn bộ L1 khi nhận thông báo clear từ instance khác.
+     */
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private String lockKey(Object key) {
+        return "lock:" + name + "::" + localKey(key);
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,115 @@
+package mobi.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager tổng hợp: mỗi cache là một TwoLevelCache gồm L1 Caffeine (kích thước và TTL theo tên cache)
+ * đặt trước L2 Redis. Thông báo xóa được phát và nhận qua Redis pub/sub để @CacheEvict trên một instance
+ * xóa được L1 của mọi instance.
+ * Bản ghi trong Redis sống thêm "stale grace" sau hạn logic (xem TwoLevelCache) để phục vụ giá trị cũ khi nạp lại.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+    private static final String SEPARATOR = "\n";
+
+    // Định danh của instance này, dùng để bỏ qua thông báo do chính mình phát ra
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RedisLeaseLock leaseLock;
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                CacheProperties properties, MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.leaseLock = new RedisLeaseLock(redisTemplate);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoLevelCache createCache(String name) {
+        CacheProperties.Spec spec = properties.specFor(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .build();
+        return new TwoLevelCache(name, local, redisCacheManager.getCache(name), spec.getRedisTtl(), this, meterRegistry);
+    }
+
+    CacheProperties getProperties() {
+        return properties;
+    }
+
+    RedisLeaseLock getLeaseLock() {
+        return leaseLock;
+    }
+
+    void publishEvict(String cacheName, String localKey) {
+        publish(EVICT + SEPARATOR + cacheName + SEPARATOR + localKey);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR + SEPARATOR + cacheName + SEPARATOR);
+    }
+
+    private void publish(String payload) {
+        try {
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(), nodeId + SEPARATOR + payload);
+        } catch (Exception e) {
+            // Không làm hỏng thao tác ghi chỉ vì không phát được thông báo; L1 của node khác sẽ hết hạn theo TTL
+            logger.warn("Cannot publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nhận thông báo xóa cache từ các instance khác: "nodeId\nE|C\ncacheName\nkey".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
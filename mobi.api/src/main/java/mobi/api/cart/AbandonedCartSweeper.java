@@ -0,0 +1,147 @@
+package mobi.api.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mobi.api.repository.CartItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dọn giỏ hàng bỏ quên: xóa cả giỏ của người dùng khi mọi dòng cart_items của họ không được sửa trong abandonAfter.
+ * Quét theo index (updated_at, id) từng đoạn chunkSize dòng; mỗi đoạn là một transaction ngắn (khóa rồi xóa
+ * các giỏ bỏ quên trong đoạn) và nghỉ pause giữa hai đoạn, để không giữ khóa lâu và không gây trễ replication.
+ * Giỏ còn dòng mới hơn cutoff được giữ nguyên; sau khi xóa, bản giỏ trong CartStore và cache "carts" cũng được bỏ.
+ */
+@Component
+public class AbandonedCartSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration abandonAfter;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Counter scannedRows;
+    private final Counter deletedRows;
+    private final Counter deletedCarts;
+    private final Timer sweepTimer;
+
+    @Autowired
+    public AbandonedCartSweeper(CartItemRepository cartItemRepository, CartStore cartStore, CacheManager cacheManager,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                @Value("${mobi.cart.abandon-after:30d}") Duration abandonAfter,
+                                @Value("${mobi.cart.sweep-chunk-size:500}") int chunkSize,
+                                @Value("${mobi.cart.sweep-pause:200ms}") Duration pause) {
+        this.cartItemRepository = cartItemRepository;
+        this.cartStore = cartStore;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.abandonAfter = abandonAfter;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.scannedRows = Counter.builder("mobi.cart.sweeper.scanned")
+                .description("Số dòng cart_items đã quét khi dọn giỏ bỏ quên")
+                .register(meterRegistry);
+        this.deletedRows = Counter.builder("mobi.cart.sweeper.deleted.rows")
+                .description("Số dòng cart_items đã xóa khi dọn giỏ bỏ quên")
+                .register(meterRegistry);
+        this.deletedCarts = Counter.builder("mobi.cart.sweeper.deleted.carts")
+                .description("Số giỏ hàng bỏ quên đã xóa")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("mobi.cart.sweep")
+                .description("Thời gian một lượt dọn giỏ hàng bỏ quên")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${mobi.cart.sweep-interval:3600000}")
+    public void sweep() {
+        sweepTimer.record(this::sweepOnce);
+    }
+
+    private void sweepOnce() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(abandonAfter);
+        LocalDateTime afterUpdatedAt = null;
+        Long afterId = null;
+        long scanned = 0;
+        long rows = 0;
+        long carts = 0;
+        List<CartItemRepository.SweepCandidate> candidates;
+        do {
+            candidates = cartItemRepository.findSweepCandidates(cutoff, afterUpdatedAt, afterId, PageRequest.of(0, chunkSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            CartItemRepository.SweepCandidate last = candidates.get(candidates.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+            scanned += candidates.size();
+            scannedRows.increment(candidates.size());
+
+            Set<Long> userIds = new LinkedHashSet<>();
+            candidates.forEach(candidate -> userIds.add(candidate.getUserId()));
+            // Một transaction ngắn cho mỗi đoạn: khóa các giỏ vẫn còn bỏ quên rồi xóa chúng
+            long[] deleted = new long[1];
+            List<Long> abandoned = transactionTemplate.execute(status -> {
+                List<Long> ids = cartItemRepository.lockAbandonedUserIds(userIds, cutoff);
+                if (!ids.isEmpty()) {
+                    deleted[0] = cartItemRepository.deleteAllByUserIdIn(ids);
+                }
+                return ids;
+            });
+            if (abandoned != null && !abandoned.isEmpty()) {
+                discard(abandoned);
+                rows += deleted[0];
+                carts += abandoned.size();
+                deletedRows.increment(deleted[0]);
+                deletedCarts.increment(abandoned.size());
+            }
+
+            if (!pause.isZero()) {
+                try {
+                    Thread.sleep(pause.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (candidates.size() == chunkSize);
+
+        if (carts > 0) {
+            logger.info("Swept {} abandoned carts ({} rows, {} rows scanned) idle since {}", carts, rows, scanned, cutoff);
+        }
+    }
+
+    /**
+     * Bỏ giỏ đã xóa khỏi CartStore và cache "carts"; lỗi ở bước này không làm dừng lượt dọn
+     * (bản trong Redis tự hết hạn theo TTL, cache "carts" theo TTL ngắn).
+     */
+    private void discard(List<Long> userIds) {
+        try {
+            cartStore.discard(userIds);
+            Cache cache = cacheManager.getCache("carts");
+            if (cache != null) {
+                userIds.forEach(cache::evict);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Cannot discard swept carts: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package mobi.api.cart;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Một lô thay đổi giỏ hàng, đã gộp theo sản phẩm: mỗi sản phẩm chỉ còn đúng một thay đổi cuối cùng
+ * (cộng thêm, đặt số lượng hoặc xóa), nên thứ tự áp dụng giữa các sản phẩm không còn quan trọng.
+ * Ví dụ: đặt 2 rồi cộng 3 thành đặt 5; xóa rồi cộng 1 thành đặt 1; cộng rồi xóa thành xóa.
+ */
+public class CartChanges {
+    private final Map<Long, Integer> additions = new LinkedHashMap<>();
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+    private final Set<Long> removals = new LinkedHashSet<>();
+
+    public CartChanges add(Long productId, int quantity) {
+        Integer set = quantities.get(productId);
+        if (set != null) {
+            quantities.put(productId, set + quantity);
+        } else if (removals.remove(productId)) {
+            quantities.put(productId, quantity);
+        } else {
+            additions.merge(productId, quantity, Integer::sum);
+        }
+        return this;
+    }
+
+    public CartChanges set(Long productId, int quantity) {
+        additions.remove(productId);
+        removals.remove(productId);
+        quantities.put(productId, quantity);
+        return this;
+    }
+
+    public CartChanges remove(Long productId) {
+        additions.remove(productId);
+        quantities.remove(productId);
+        removals.add(productId);
+        return this;
+    }
+
+    /**
+     * @return productId -> số lượng cộng thêm (tạo mới nếu chưa có trong giỏ).
+     */
+    public Map<Long, Integer> getAdditions() {
+        return additions;
+    }
+
+    /**
+     * @return productId -> số lượng mới (tạo mới nếu chưa có trong giỏ).
+     */
+    public Map<Long, Integer> getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * @return Các sản phẩm cần xóa khỏi giỏ.
+     */
+    public Set<Long> getRemovals() {
+        return removals;
+    }
+
+    public boolean isEmpty() {
+        return additions.isEmpty() && quantities.isEmpty() && removals.isEmpty();
+    }
+}
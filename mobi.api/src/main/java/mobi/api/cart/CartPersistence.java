@@ -0,0 +1,80 @@
+package mobi.api.cart;
+
+import mobi.api.repository.CartItemRepository;
+import mobi.api.repository.UserRepository;
+import mobi.model.entity.CartItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Đồng bộ giỏ hàng giữa CartStore và bảng cart_items.
+ */
+@Component
+public class CartPersistence {
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CartPersistence(CartItemRepository cartItemRepository, UserRepository userRepository) {
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Đọc giỏ hàng đã lưu trong cart_items.
+     *
+     * @param userId ID người dùng.
+     * @return productId -> số lượng, theo thứ tự thêm vào.
+     */
+    @Transactional
+    public Map<Long, Integer> load(Long userId) {
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        for (CartItem item : cartItemRepository.findByUserIdOrderById(userId)) {
+            items.put(item.getProduct().getId(), item.getQuantity());
+        }
+        return items;
+    }
+
+    /**
+     * Ghi trạng thái hiện tại của giỏ vào cart_items: mỗi sản phẩm một câu upsert theo unique key (user_id, product_id),
+     * rồi một câu DELETE cho các sản phẩm không còn trong giỏ. Không đọc lại cart_items.
+     * Khóa dòng users của người dùng trước khi đọc snapshot, nên hai lần đồng bộ cùng người dùng chạy lần lượt
+     * và lần sau luôn đọc snapshot mới hơn.
+     *
+     * @param userId   ID người dùng.
+     * @param snapshot Hàm đọc giỏ hiện tại, trả về null nếu không còn dữ liệu (khi đó giữ nguyên cart_items).
+     */
+    @Transactional
+    public void save(Long userId, Supplier<Map<Long, Integer>> snapshot) {
+        if (userRepository.lockById(userId) == null) {
+            return; // Người dùng đã bị xóa
+        }
+        Map<Long, Integer> items = snapshot.get();
+        if (items == null) {
+            return;
+        }
+
+        if (items.isEmpty()) {
+            cartItemRepository.deleteAllByUserId(userId);
+            return;
+        }
+        items.forEach((productId, quantity) -> cartItemRepository.upsertQuantity(userId, productId, quantity));
+        cartItemRepository.deleteByUserIdExcept(userId, items.keySet());
+    }
+
+    /**
+     * Xóa giỏ của người dùng trong cart_items bằng một câu DELETE, trong transaction đang chạy.
+     *
+     * @return Số dòng đã xóa.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int clear(Long userId) {
+        return cartItemRepository.deleteAllByUserId(userId);
+    }
+}
@@ -0,0 +1,65 @@
+package mobi.api.cart;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Nơi lưu giỏ hàng đang dùng của người dùng (productId -> số lượng).
+ * Mọi đọc/ghi giỏ hàng đi qua interface này; bảng cart_items là bản lưu bền vững
+ * (RedisCartStore ghi xuống sau theo lô, JpaCartStore ghi trực tiếp).
+ */
+public interface CartStore {
+    /**
+     * @param userId ID người dùng.
+     * @return Các mặt hàng trong giỏ (productId -> số lượng), rỗng nếu giỏ trống.
+     */
+    Map<Long, Integer> getItems(Long userId);
+
+    /**
+     * Thêm số lượng cho một sản phẩm (tạo mới nếu chưa có trong giỏ).
+     *
+     * @return true nếu sản phẩm mới được thêm vào giỏ, false nếu chỉ cộng thêm số lượng.
+     */
+    boolean add(Long userId, Long productId, int quantity);
+
+    /**
+     * Đặt số lượng cho một sản phẩm đã có trong giỏ.
+     *
+     * @return false nếu sản phẩm chưa có trong giỏ.
+     */
+    boolean update(Long userId, Long productId, int quantity);
+
+    /**
+     * Xóa một sản phẩm khỏi giỏ.
+     *
+     * @return false nếu sản phẩm không có trong giỏ.
+     */
+    boolean remove(Long userId, Long productId);
+
+    /**
+     * Áp dụng cả lô thay đổi một cách nguyên tử (một script Redis hoặc một transaction).
+     *
+     * @return Giỏ hàng sau khi áp dụng (productId -> số lượng).
+     */
+    Map<Long, Integer> apply(Long userId, CartChanges changes);
+
+    /**
+     * Xóa toàn bộ giỏ hàng.
+     */
+    void clear(Long userId);
+
+    /**
+     * Lấy và xóa toàn bộ giỏ trong một thao tác nguyên tử (dùng khi đặt hàng): hai lần gọi đồng thời
+     * không bao giờ cùng nhận một giỏ, và sản phẩm thêm vào sau đó nằm trong giỏ mới.
+     * Phải gọi trong transaction; nếu transaction rollback, giỏ đã lấy được trả lại.
+     *
+     * @return Giỏ hàng vừa lấy (productId -> số lượng), rỗng nếu giỏ trống.
+     */
+    Map<Long, Integer> take(Long userId);
+
+    /**
+     * Bỏ bản giỏ đang giữ ngoài cart_items của các người dùng vừa bị dọn giỏ bỏ quên khỏi cart_items.
+     * Giỏ đã bị sửa lại (chưa ghi xuống cart_items) được giữ nguyên.
+     */
+    void discard(Collection<Long> userIds);
+}
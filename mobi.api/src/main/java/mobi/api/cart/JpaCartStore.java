@@ -0,0 +1,118 @@
+package mobi.api.cart;
+
+import mobi.api.repository.CartItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CartStore ghi thẳng vào bảng cart_items (dùng khi không có Redis).
+ * Mỗi thao tác là một câu lệnh: thêm dùng upsert ON DUPLICATE KEY UPDATE quantity = quantity + ?
+ * nên các lần thêm đồng thời không mất lượt cộng và không tạo dòng trùng.
+ */
+@Component
+@ConditionalOnProperty(name = "mobi.cart.store", havingValue = "jpa")
+public class JpaCartStore implements CartStore {
+    // Cùng câu lệnh với CartItemRepository.upsertQuantity/upsertAddQuantity, dạng JDBC để gửi theo lô
+    private static final String UPSERT_QUANTITY_SQL = "INSERT INTO cart_items (user_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (?, ?, ?, NOW(6), NOW(6)) "
+            + "ON DUPLICATE KEY UPDATE updated_at = IF(quantity = VALUES(quantity), updated_at, NOW(6)), quantity = VALUES(quantity)";
+    private static final String UPSERT_ADD_QUANTITY_SQL = "INSERT INTO cart_items (user_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (?, ?, ?, NOW(6), NOW(6)) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), updated_at = NOW(6)";
+
+    private final CartItemRepository cartItemRepository;
+    private final CartPersistence cartPersistence;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JpaCartStore(CartItemRepository cartItemRepository, CartPersistence cartPersistence, JdbcTemplate jdbcTemplate) {
+        this.cartItemRepository = cartItemRepository;
+        this.cartPersistence = cartPersistence;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<Long, Integer> getItems(Long userId) {
+        return new TreeMap<>(cartPersistence.load(userId));
+    }
+
+    @Override
+    @Transactional
+    public boolean add(Long userId, Long productId, int quantity) {
+        return cartItemRepository.upsertAddQuantity(userId, productId, quantity) == 1;
+    }
+
+    @Override
+    @Transactional
+    public boolean update(Long userId, Long productId, int quantity) {
+        return cartItemRepository.updateQuantity(userId, productId, quantity) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean remove(Long userId, Long productId) {
+        return cartItemRepository.deleteByUserIdAndProductId(userId, productId) > 0;
+    }
+
+    /**
+     * Một transaction: một câu DELETE ... IN cho các sản phẩm bị xóa, hai JDBC batch upsert
+     * (rewriteBatchedStatements gộp mỗi batch thành một câu INSERT nhiều dòng), rồi đọc lại giỏ.
+     */
+    @Override
+    @Transactional
+    public Map<Long, Integer> apply(Long userId, CartChanges changes) {
+        if (!changes.getRemovals().isEmpty()) {
+            cartItemRepository.deleteByUserIdAndProductIdIn(userId, changes.getRemovals());
+        }
+        batchUpsert(UPSERT_QUANTITY_SQL, userId, changes.getQuantities());
+        batchUpsert(UPSERT_ADD_QUANTITY_SQL, userId, changes.getAdditions());
+        return getItems(userId);
+    }
+
+    @Override
+    @Transactional
+    public void clear(Long userId) {
+        cartItemRepository.deleteAllByUserId(userId);
+    }
+
+    /**
+     * Khóa và đọc các dòng của giỏ rồi xóa chúng trong transaction đang chạy; rollback thì giỏ còn nguyên.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> take(Long userId) {
+        Map<Long, Integer> items = new TreeMap<>();
+        for (CartItemRepository.CartLine line : cartItemRepository.lockLinesByUserId(userId)) {
+            items.put(line.getProductId(), line.getQuantity());
+        }
+        if (!items.isEmpty() && cartItemRepository.deleteAllByUserId(userId) != items.size()) {
+            // Các dòng đã bị khóa nên không thể xảy ra, trừ khi khóa bị bỏ qua
+            throw new IllegalStateException("Cart of user " + userId + " changed while checking out");
+        }
+        return items;
+    }
+
+    @Override
+    public void discard(Collection<Long> userIds) {
+        // Giỏ chỉ nằm trong cart_items, không còn gì để bỏ
+    }
+
+    private void batchUpsert(String sql, Long userId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[]{userId, productId, quantity}));
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+}
@@ -0,0 +1,419 @@
+package mobi.api.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CartStore trên Redis: mỗi giỏ là một hash "mobi:cart:{shard}:userId" (productId -> số lượng),
+ * với shard = userId mod số shard. Mỗi thao tác thêm/sửa/xóa là một script Lua (một lượt gọi Redis): đổi hash,
+ * gia hạn TTL và đánh dấu giỏ vào tập "mobi:cart:{shard}:dirty" cùng shard. Hash tag {shard} đặt giỏ và tập đánh dấu
+ * của nó vào cùng một slot nên các script chạy được trên Redis Cluster.
+ * Tác vụ định kỳ chuyển các giỏ đã đánh dấu sang "mobi:cart:{shard}:flushing" (ZSET, điểm là thời điểm nhận),
+ * ghi trạng thái mới nhất của từng giỏ vào cart_items (nhiều thay đổi liên tiếp chỉ ghi một lần) và chỉ bỏ
+ * giỏ khỏi flushing sau khi transaction commit. Giỏ nằm trong flushing quá claimTimeout (instance ghi bị dừng
+ * giữa chừng) được trả về tập đánh dấu.
+ * Hash luôn có trường "_" nên giỏ trống vẫn tồn tại; khi key không còn (Redis mất dữ liệu hoặc hết TTL)
+ * giỏ được nạp lại từ cart_items rồi thực hiện lại thao tác.
+ */
+@Component
+@ConditionalOnProperty(name = "mobi.cart.store", havingValue = "redis", matchIfMissing = true)
+public class RedisCartStore implements CartStore {
+    private static final Logger logger = LoggerFactory.getLogger(RedisCartStore.class);
+    private static final String KEY_PREFIX = "mobi:cart:";
+    private static final String DIRTY_SUFFIX = ":dirty";
+    private static final String FLUSHING_SUFFIX = ":flushing";
+    // Trường đánh dấu giỏ đã được nạp, không phải sản phẩm
+    private static final String PRESENT_FIELD = "_";
+    private static final long MISSING = -1;
+
+    // KEYS: cart, dirty; ARGV: productId, quantity, userId, ttl
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end "
+                    + "local quantity = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[3]) "
+                    + "return quantity", Long.class);
+    private static final RedisScript<Long> UPDATE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end "
+                    + "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[3]) "
+                    + "return 1", Long.class);
+    // KEYS: cart, dirty; ARGV: productId, userId, ttl
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end "
+                    + "local removed = redis.call('HDEL', KEYS[1], ARGV[1]) "
+                    + "if removed == 1 then redis.call('SADD', KEYS[2], ARGV[2]) end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[3]) "
+                    + "return removed", Long.class);
+    // KEYS: cart, dirty; ARGV: userId, ttl
+    private static final RedisScript<Long> CLEAR = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+                    + "redis.call('HSET', KEYS[1], '" + PRESENT_FIELD + "', '1') "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[1]) "
+                    + "return 1", Long.class);
+    // KEYS: cart, dirty; ARGV: userId, ttl, rồi từng bộ ba (A = cộng / S = đặt / R = xóa, productId, quantity).
+    // Trả về HGETALL của giỏ sau khi áp dụng, hoặc danh sách rỗng nếu giỏ chưa có (hash luôn có trường "_")
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> APPLY = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end "
+                    + "for i = 3, #ARGV, 3 do "
+                    + "if ARGV[i] == 'A' then redis.call('HINCRBY', KEYS[1], ARGV[i + 1], ARGV[i + 2]) "
+                    + "elseif ARGV[i] == 'S' then redis.call('HSET', KEYS[1], ARGV[i + 1], ARGV[i + 2]) "
+                    + "else redis.call('HDEL', KEYS[1], ARGV[i + 1]) end "
+                    + "end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[1]) "
+                    + "return redis.call('HGETALL', KEYS[1])", List.class);
+    // KEYS: cart, dirty; ARGV: userId, ttl. Trả về HGETALL rồi làm rỗng giỏ, danh sách rỗng nếu giỏ chưa có
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end "
+                    + "local entries = redis.call('HGETALL', KEYS[1]) "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "redis.call('HSET', KEYS[1], '" + PRESENT_FIELD + "', '1') "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[1]) "
+                    + "return entries", List.class);
+    // KEYS: dirty, flushing, cart1, cart2, ... (cùng shard); ARGV: userId1, userId2, ...
+    // Giữ lại giỏ đang chờ hoặc đang được ghi xuống cart_items
+    private static final RedisScript<Long> DISCARD = new DefaultRedisScript<>(
+            "local discarded = 0 "
+                    + "for i = 3, #KEYS do "
+                    + "if redis.call('SISMEMBER', KEYS[1], ARGV[i - 2]) == 0 and not redis.call('ZSCORE', KEYS[2], ARGV[i - 2]) "
+                    + "then discarded = discarded + redis.call('DEL', KEYS[i]) end "
+                    + "end "
+                    + "return discarded", Long.class);
+    // KEYS: dirty, flushing; ARGV: số giỏ tối đa, thời điểm nhận (ms). Chuyển các giỏ đã đánh dấu sang flushing
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM = new DefaultRedisScript<>(
+            "local ids = redis.call('SPOP', KEYS[1], ARGV[1]) "
+                    + "for i = 1, #ids do redis.call('ZADD', KEYS[2], ARGV[2], ids[i]) end "
+                    + "return ids", List.class);
+    // KEYS: dirty, flushing; ARGV: userId1, userId2, ... Trả các giỏ đã nhận về tập đánh dấu
+    private static final RedisScript<Long> RECOVER_IDS = new DefaultRedisScript<>(
+            "for i = 1, #ARGV do "
+                    + "redis.call('SADD', KEYS[1], ARGV[i]) "
+                    + "redis.call('ZREM', KEYS[2], ARGV[i]) "
+                    + "end "
+                    + "return #ARGV", Long.class);
+    // KEYS: dirty, flushing; ARGV: hạn (ms). Trả các giỏ nhận trước hạn mà chưa ghi xong về tập đánh dấu
+    private static final RedisScript<Long> RECOVER = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1]) "
+                    + "for i = 1, #ids do "
+                    + "redis.call('SADD', KEYS[1], ids[i]) "
+                    + "redis.call('ZREM', KEYS[2], ids[i]) "
+                    + "end "
+                    + "return #ids", Long.class);
+    // KEYS: cart; ARGV: ttl, productId1, quantity1, ... Chỉ nạp khi key chưa có (instance khác có thể đã nạp)
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+                    + "redis.call('HSET', KEYS[1], '" + PRESENT_FIELD + "', '1', unpack(ARGV, 2)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartPersistence cartPersistence;
+    private final String ttlSeconds;
+    private final int shards;
+    private final int flushBatchSize;
+    private final Duration claimTimeout;
+    private final Counter reloads;
+    private final Counter flushed;
+    private final Timer flushTimer;
+
+    @Autowired
+    public RedisCartStore(StringRedisTemplate redisTemplate, CartPersistence cartPersistence, MeterRegistry meterRegistry,
+                          @Value("${mobi.cart.ttl:30d}") Duration ttl,
+                          @Value("${mobi.cart.shards:16}") int shards,
+                          @Value("${mobi.cart.flush-batch-size:500}") int flushBatchSize,
+                          @Value("${mobi.cart.flush-claim-timeout:5m}") Duration claimTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.cartPersistence = cartPersistence;
+        this.ttlSeconds = String.valueOf(ttl.toSeconds());
+        this.shards = shards;
+        this.flushBatchSize = flushBatchSize;
+        this.claimTimeout = claimTimeout;
+        this.reloads = Counter.builder("mobi.cart.reloads")
+                .description("Số lần nạp lại giỏ hàng từ MySQL vào Redis")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("mobi.cart.flushed")
+                .description("Số giỏ hàng đã ghi xuống cart_items")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("mobi.cart.flush")
+                .description("Thời gian một lượt ghi các giỏ hàng đã thay đổi xuống cart_items")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Map<Long, Integer> getItems(Long userId) {
+        Map<Long, Integer> items = snapshot(userId);
+        if (items == null) {
+            reload(userId);
+            items = snapshot(userId);
+        }
+        return items != null ? items : new TreeMap<>();
+    }
+
+    @Override
+    public boolean add(Long userId, Long productId, int quantity) {
+        // HINCRBY trả về đúng số lượng vừa cộng khi sản phẩm chưa có trong giỏ
+        return execute(ADD, userId, productId.toString(), String.valueOf(quantity), userId.toString(), ttlSeconds) == quantity;
+    }
+
+    @Override
+    public boolean update(Long userId, Long productId, int quantity) {
+        return execute(UPDATE, userId, productId.toString(), String.valueOf(quantity), userId.toString(), ttlSeconds) == 1;
+    }
+
+    @Override
+    public boolean remove(Long userId, Long productId) {
+        return execute(REMOVE, userId, productId.toString(), userId.toString(), ttlSeconds) == 1;
+    }
+
+    @Override
+    public Map<Long, Integer> apply(Long userId, CartChanges changes) {
+        List<String> args = new ArrayList<>();
+        args.add(userId.toString());
+        args.add(ttlSeconds);
+        changes.getRemovals().forEach(productId -> addOperation(args, "R", productId, 0));
+        changes.getQuantities().forEach((productId, quantity) -> addOperation(args, "S", productId, quantity));
+        changes.getAdditions().forEach((productId, quantity) -> addOperation(args, "A", productId, quantity));
+
+        return executeForItems(APPLY, userId, args.toArray());
+    }
+
+    /**
+     * Lấy giỏ khỏi Redis bằng một script (HGETALL rồi làm rỗng) và xóa cart_items trong transaction đang chạy.
+     * Nếu transaction rollback, các sản phẩm đã lấy được cộng trở lại vào giỏ.
+     */
+    @Override
+    public Map<Long, Integer> take(Long userId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("CartStore.take requires an active transaction");
+        }
+        Map<Long, Integer> items = executeForItems(TAKE, userId, userId.toString(), ttlSeconds);
+        cartPersistence.clear(userId);
+        if (!items.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        CartChanges restore = new CartChanges();
+                        items.forEach(restore::add);
+                        apply(userId, restore);
+                    }
+                }
+            });
+        }
+        return items;
+    }
+
+    @Override
+    public void clear(Long userId) {
+        redisTemplate.execute(CLEAR, keys(userId), userId.toString(), ttlSeconds);
+    }
+
+    @Override
+    public void discard(Collection<Long> userIds) {
+        // Một script cho mỗi shard: các key trong một script phải cùng slot
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        userIds.forEach(userId -> byShard.computeIfAbsent(shard(userId), s -> new ArrayList<>()).add(userId));
+        byShard.forEach((shard, ids) -> {
+            List<String> keys = new ArrayList<>(2 + ids.size());
+            List<String> args = new ArrayList<>(ids.size());
+            keys.add(dirtyKey(shard));
+            keys.add(flushingKey(shard));
+            for (Long userId : ids) {
+                keys.add(key(userId));
+                args.add(userId.toString());
+            }
+            redisTemplate.execute(DISCARD, keys, args.toArray());
+        });
+    }
+
+    /**
+     * Ghi các giỏ đã thay đổi xuống cart_items, lần lượt từng shard. Mỗi giỏ được chuyển nguyên tử từ tập đánh dấu
+     * sang flushing nên chỉ một instance ghi nó trong một lượt, và chỉ bỏ khỏi flushing sau khi ghi xong;
+     * giỏ bị sửa trong lúc ghi sẽ được đánh dấu lại và ghi ở lượt sau. Ghi lỗi thì giỏ được trả về tập đánh dấu.
+     */
+    @Scheduled(fixedDelayString = "${mobi.cart.flush-interval:1000}")
+    public void flush() {
+        flushTimer.record(() -> {
+            for (int shard = 0; shard < shards; shard++) {
+                if (!flush(shard)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return false nếu gặp lỗi tạm thời (DB/Redis) và lượt ghi nên dừng.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean flush(int shard) {
+        List<String> keys = List.of(dirtyKey(shard), flushingKey(shard));
+        try {
+            long now = System.currentTimeMillis();
+            Long recovered = redisTemplate.execute(RECOVER, keys, String.valueOf(now - claimTimeout.toMillis()));
+            if (recovered != null && recovered > 0) {
+                logger.warn("Recovered {} unflushed carts of shard {}", recovered, shard);
+            }
+
+            List<String> userIds;
+            do {
+                userIds = redisTemplate.execute(CLAIM, keys, String.valueOf(flushBatchSize), String.valueOf(now));
+                if (userIds == null) {
+                    return true;
+                }
+                for (int i = 0; i < userIds.size(); i++) {
+                    Long userId = Long.valueOf(userIds.get(i));
+                    try {
+                        cartPersistence.save(userId, () -> snapshot(userId));
+                        redisTemplate.opsForZSet().remove(keys.get(1), userIds.get(i));
+                        flushed.increment();
+                    } catch (DataIntegrityViolationException e) {
+                        // Không ghi được giỏ này (ví dụ sản phẩm đã bị xóa): giữ đánh dấu để thử lại ở lượt sau
+                        logger.warn("Cannot persist cart of user {}: {}", userId, e.getMostSpecificCause().getMessage());
+                        release(keys, userIds.subList(i, i + 1));
+                    } catch (RuntimeException e) {
+                        // Lỗi tạm thời: trả các giỏ chưa ghi về tập đánh dấu và dừng lượt này
+                        release(keys, userIds.subList(i, userIds.size()));
+                        throw e;
+                    }
+                }
+            } while (userIds.size() == flushBatchSize);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Cart flush interrupted: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Trả các giỏ đã nhận nhưng chưa ghi về tập đánh dấu; nếu Redis lỗi, RECOVER sẽ trả chúng về sau claimTimeout.
+     */
+    private void release(List<String> keys, List<String> userIds) {
+        try {
+            redisTemplate.execute(RECOVER_IDS, keys, userIds.toArray());
+        } catch (RuntimeException e) {
+            logger.warn("Cannot release claimed carts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chạy một script trả về HGETALL của giỏ; nếu giỏ chưa có trong Redis thì nạp lại từ MySQL và chạy lại một lần.
+     */
+    @SuppressWarnings("rawtypes")
+    private Map<Long, Integer> executeForItems(RedisScript<List> script, Long userId, Object... args) {
+        List<String> keys = keys(userId);
+        List<?> entries = redisTemplate.execute(script, keys, args);
+        if (entries == null || entries.isEmpty()) {
+            reload(userId);
+            entries = redisTemplate.execute(script, keys, args);
+        }
+        Map<Long, Integer> items = new TreeMap<>();
+        for (int i = 0; entries != null && i + 1 < entries.size(); i += 2) {
+            String field = (String) entries.get(i);
+            if (!PRESENT_FIELD.equals(field)) {
+                items.put(Long.valueOf(field), Integer.valueOf((String) entries.get(i + 1)));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Chạy một script thay đổi giỏ; nếu giỏ chưa có trong Redis thì nạp lại từ MySQL và chạy lại một lần.
+     */
+    private long execute(RedisScript<Long> script, Long userId, String... args) {
+        List<String> keys = keys(userId);
+        Long result = redisTemplate.execute(script, keys, (Object[]) args);
+        if (result != null && result == MISSING) {
+            reload(userId);
+            result = redisTemplate.execute(script, keys, (Object[]) args);
+        }
+        return result != null ? result : 0;
+    }
+
+    private void reload(Long userId) {
+        Map<Long, Integer> items = cartPersistence.load(userId);
+        List<String> args = new ArrayList<>(1 + 2 * items.size());
+        args.add(ttlSeconds);
+        items.forEach((productId, quantity) -> {
+            args.add(productId.toString());
+            args.add(quantity.toString());
+        });
+        redisTemplate.execute(LOAD, List.of(key(userId)), args.toArray());
+        reloads.increment();
+    }
+
+    /**
+     * Đọc giỏ trong Redis (sắp theo productId), null nếu key không tồn tại.
+     */
+    private Map<Long, Integer> snapshot(Long userId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(userId));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Map<Long, Integer> items = new TreeMap<>();
+        entries.forEach((field, value) -> {
+            if (!PRESENT_FIELD.equals(field)) {
+                items.put(Long.valueOf((String) field), Integer.valueOf((String) value));
+            }
+        });
+        return items;
+    }
+
+    private static void addOperation(List<String> args, String operation, Long productId, int quantity) {
+        args.add(operation);
+        args.add(productId.toString());
+        args.add(String.valueOf(quantity));
+    }
+
+    private int shard(Long userId) {
+        return (int) Math.floorMod(userId, (long) shards);
+    }
+
+    private String key(Long userId) {
+        return KEY_PREFIX + "{" + shard(userId) + "}:" + userId;
+    }
+
+    /**
+     * @return Key của giỏ và của tập đánh dấu cùng shard (KEYS của các script sửa giỏ).
+     */
+    private List<String> keys(Long userId) {
+        return List.of(key(userId), dirtyKey(shard(userId)));
+    }
+
+    private static String dirtyKey(int shard) {
+        return KEY_PREFIX + "{" + shard + "}" + DIRTY_SUFFIX;
+    }
+
+    private static String flushingKey(int shard) {
+        return KEY_PREFIX + "{" + shard + "}" + FLUSHING_SUFFIX;
+    }
+}
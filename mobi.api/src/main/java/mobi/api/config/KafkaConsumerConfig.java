@@ -0,0 +1,22 @@
+package mobi.api.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Lớp cấu hình xử lý lỗi cho Kafka consumer.
+ * Spring Boot gắn error handler này vào container factory mặc định: bản ghi lỗi được thử lại vài lần
+ * rồi chuyển sang topic "{topic}.DLT" (lỗi không đọc được bản ghi thì chuyển ngay, không thử lại).
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate), new FixedBackOff(1000L, 2));
+    }
+}
@@ -1,5 +1,10 @@
 package mobi.api.config;
 
+import mobi.api.kafka.NotificationConsumer;
+import mobi.api.kafka.NotificationProducer;
+import mobi.api.kafka.OrderPlacedEvent;
+import mobi.api.kafka.ProductChangedEvent;
+import mobi.api.kafka.UserChangedEvent;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,15 +16,46 @@ import org.springframework.kafka.config.TopicBuilder;
 @Configuration
 public class KafkaTopicConfig {
     /**
-     * Tạo một bean NewTopic để đăng ký một topic mới trên Kafka.
+     * Topic thông báo (email), key là ID người dùng.
      *
      * @return NewTopic
      */
     @Bean
-    public NewTopic passwordResetTopic() {
-        return TopicBuilder.name("password-reset-topic")
-                .partitions(1) // Số lượng phân vùng
-                .replicas(1) // Số lượng bản sao
+    public NewTopic notificationTopic() {
+        return TopicBuilder.name(NotificationProducer.TOPIC)
+                .partitions(3)
+                .replicas(1)
                 .build();
     }
+
+    /**
+     * Topic dead-letter cho thông báo gửi lỗi; cùng số phân vùng để giữ nguyên phân vùng của bản ghi gốc.
+     *
+     * @return NewTopic
+     */
+    @Bean
+    public NewTopic notificationDeadLetterTopic() {
+        return TopicBuilder.name(NotificationConsumer.DLT_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Topic sự kiện miền (gửi qua outbox), key là ID của aggregate.
+     */
+    @Bean
+    public NewTopic orderEventsTopic() {
+        return TopicBuilder.name(OrderPlacedEvent.TOPIC).partitions(3).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic productEventsTopic() {
+        return TopicBuilder.name(ProductChangedEvent.TOPIC).partitions(3).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic userEventsTopic() {
+        return TopicBuilder.name(UserChangedEvent.TOPIC).partitions(3).replicas(1).build();
+    }
 }
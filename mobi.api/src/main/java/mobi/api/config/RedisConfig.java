@@ -1,38 +1,76 @@
 package mobi.api.config;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import mobi.api.cache.CacheProperties;
+import mobi.api.cache.CompactRedisSerializer;
+import mobi.api.cache.TwoLevelCacheManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class RedisConfig {
 
     @Bean
-    public RedisCacheConfiguration cacheConfiguration() {
+    public RedisCacheConfiguration cacheConfiguration(CacheProperties cacheProperties) {
         return RedisCacheConfiguration.defaultCacheConfig()
                 // TTL mặc định 1 giờ, bạn có thể thay đổi
                 .entryTtl(Duration.ofHours(1))
                 // Key sử dụng String
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                // Value sử dụng JSON
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                // Value sử dụng Smile nhị phân, nén LZ4 khi lớn (vẫn đọc được bản ghi JSON cũ)
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new CompactRedisSerializer(cacheProperties.getCompressionThreshold())))
                 // Không cache giá trị null
                 .disableCachingNullValues();
     }
 
+    /**
+     * CacheManager hai tầng: Caffeine (L1, theo từng instance) đặt trước Redis (L2, dùng chung).
+     * TTL của Redis và kích thước/TTL của L1 được cấu hình theo tên cache trong "mobi.cache.*".
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(cacheConfiguration())
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, StringRedisTemplate redisTemplate,
+                                             CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        Map<String, RedisCacheConfiguration> redisConfigurations = new HashMap<>();
+        // TTL thật trong Redis = TTL logic + stale grace, để còn giá trị cũ phục vụ trong lúc nạp lại
+        cacheProperties.getCaches().forEach((name, spec) ->
+                redisConfigurations.put(name, cacheConfiguration(cacheProperties).entryTtl(spec.getRedisTtl().plus(cacheProperties.getStaleGrace()))));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(cacheConfiguration(cacheProperties).entryTtl(cacheProperties.getDefaults().getRedisTtl().plus(cacheProperties.getStaleGrace())))
+                .withInitialCacheConfigurations(redisConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, redisTemplate, cacheProperties, meterRegistry);
+    }
+
+    /**
+     * Container lắng nghe Redis pub/sub, nhận thông báo xóa cache L1 từ các instance khác.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       CacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheProperties.getInvalidationChannel()));
+        return container;
     }
 }
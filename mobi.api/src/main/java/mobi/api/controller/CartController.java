@@ -1,137 +1,120 @@
 package mobi.api.controller;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import mobi.api.cart.CartChanges;
+import mobi.api.payload.request.CartBatchRequest;
 import mobi.api.payload.request.CartItemRequest;
+import mobi.api.payload.request.CartOperationRequest;
+import mobi.api.payload.response.CartResponse;
 import mobi.api.payload.response.MessageResponse;
-import mobi.api.repository.CartItemRepository;
-import mobi.api.repository.ProductRepository;
-import mobi.api.repository.UserRepository;
-import mobi.api.security.services.UserDetailsImpl;
-import mobi.model.entity.CartItem;
-import mobi.model.entity.Product;
-import mobi.model.entity.auth.User;
-import org.springframework.beans.factory.annotation.Autowired;
+import mobi.api.security.principal.CurrentUserId;
+import mobi.api.service.CartService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
-import java.util.Optional;
-
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RequestMapping("/api/cart")
 @RestController
 @PreAuthorize("hasRole('USER') or hasRole('ADMIN')") // Bảo vệ tất cả các endpoint trong controller này
 public class CartController {
 
-    private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final CartService cartService;
 
-    public CartController(CartItemRepository cartItemRepository, UserRepository userRepository, ProductRepository productRepository) {
-        this.cartItemRepository = cartItemRepository;
-        this.userRepository = userRepository;
-        this.productRepository = productRepository;
+    public CartController(CartService cartService) {
+        this.cartService = cartService;
     }
 
     /**
-     * Lấy tất cả các mặt hàng trong giỏ hàng của người dùng hiện tại.
+     * Lấy giỏ hàng đã tính giá của người dùng hiện tại (thành tiền, tổng số lượng, tổng tiền tính ở server).
+     * Kết quả được cache theo người dùng cho đến lần sửa giỏ tiếp theo.
      *
-     * @return Danh sách các mặt hàng trong giỏ hàng.
+     * @param userId ID người dùng hiện tại (lấy từ JWT).
+     * @return Giỏ hàng, các dòng theo ID sản phẩm.
      */
     @GetMapping
-    public ResponseEntity<List<CartItem>> getCartItems() {
-        User currentUser = getCurrentUser();
-        List<CartItem> cartItems = cartItemRepository.findByUser(currentUser);
-        return ResponseEntity.ok(cartItems);
+    public ResponseEntity<CartResponse> getCart(@CurrentUserId Long userId) {
+        return ResponseEntity.ok(cartService.getCart(userId));
     }
 
     /**
-     * Thêm một sản phẩm vào giỏ hàng hoặc cập nhật số lượng nếu đã tồn tại.
+     * Thêm một sản phẩm vào giỏ hàng hoặc cộng thêm số lượng nếu đã tồn tại.
+     * Sản phẩm được kiểm tra qua cache productById; thao tác giỏ là một lệnh (Redis hoặc upsert MySQL).
      *
+     * @param userId          ID người dùng hiện tại (lấy từ JWT).
      * @param cartItemRequest Dữ liệu sản phẩm và số lượng.
      * @return Phản hồi xác nhận.
      */
     @PostMapping()
-    @Transactional
-    public ResponseEntity<MessageResponse> addProductToCart(@Valid @RequestBody CartItemRequest cartItemRequest) {
-        User currentUser = getCurrentUser();
-        Product product = productRepository.findById(cartItemRequest.getProductId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-        Optional<CartItem> existingCartItem = cartItemRepository.findByUserAndProduct(currentUser, product);
-
-        if (existingCartItem.isPresent()) {
-            CartItem cartItem = existingCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + cartItemRequest.getQuantity());
-            cartItemRepository.save(cartItem);
-            return ResponseEntity.ok(new MessageResponse("Product quantity updated in cart successfully!"));
-        } else {
-            CartItem newCartItem = new CartItem();
-            newCartItem.setUser(currentUser);
-            newCartItem.setProduct(product);
-            newCartItem.setQuantity(cartItemRequest.getQuantity());
-            cartItemRepository.save(newCartItem);
+    public ResponseEntity<MessageResponse> addProductToCart(@CurrentUserId Long userId, @Valid @RequestBody CartItemRequest cartItemRequest) {
+        if (cartService.addItem(userId, cartItemRequest.getProductId(), cartItemRequest.getQuantity())) {
             return ResponseEntity.status(HttpStatus.CREATED).body(new MessageResponse("Product added to cart successfully!"));
         }
+        return ResponseEntity.ok(new MessageResponse("Product quantity updated in cart successfully!"));
     }
 
     /**
      * Cập nhật số lượng của một mặt hàng trong giỏ hàng.
      *
+     * @param userId          ID người dùng hiện tại (lấy từ JWT).
      * @param productId       ID của sản phẩm cần cập nhật.
      * @param cartItemRequest Dữ liệu số lượng mới.
      * @return Phản hồi xác nhận.
      */
     @PutMapping("/update/{productId}")
-    @Transactional
-    public ResponseEntity<MessageResponse> updateCartItem(@PathVariable Long productId, @Valid @RequestBody CartItemRequest cartItemRequest) {
-        User currentUser = getCurrentUser();
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-        CartItem cartItem = cartItemRepository.findByUserAndProduct(currentUser, product)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found"));
-
-        cartItem.setQuantity(cartItemRequest.getQuantity());
-        cartItemRepository.save(cartItem);
-
+    public ResponseEntity<MessageResponse> updateCartItem(@CurrentUserId Long userId, @PathVariable Long productId, @Valid @RequestBody CartItemRequest cartItemRequest) {
+        if (!cartService.updateItem(userId, productId, cartItemRequest.getQuantity())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found");
+        }
         return ResponseEntity.ok(new MessageResponse("Cart item quantity updated successfully!"));
     }
 
     /**
      * Xóa một mặt hàng khỏi giỏ hàng.
      *
+     * @param userId    ID người dùng hiện tại (lấy từ JWT).
      * @param productId ID của sản phẩm cần xóa.
      * @return Phản hồi xác nhận.
      */
     @DeleteMapping("/remove/{productId}")
-    @Transactional
-    public ResponseEntity<MessageResponse> removeCartItem(@PathVariable Long productId) {
-        User currentUser = getCurrentUser();
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-        cartItemRepository.deleteByUserAndProduct(currentUser, product);
-
+    public ResponseEntity<MessageResponse> removeCartItem(@CurrentUserId Long userId, @PathVariable Long productId) {
+        cartService.removeItem(userId, productId);
         return ResponseEntity.ok(new MessageResponse("Product removed from cart successfully!"));
     }
 
-
     /**
-     * Phương thức tiện ích để lấy người dùng hiện tại từ SecurityContextHolder.
+     * Áp dụng nhiều thao tác thêm/đặt số lượng/xóa lên giỏ hàng trong một lần gọi (ví dụ khi lưu trang thanh toán).
+     * Sản phẩm của giỏ hiện tại và của lô được tra bằng một truy vấn IN; cả lô được áp dụng nguyên tử
+     * qua CartStore (một script Redis hoặc một transaction với SQL theo lô).
      *
-     * @return Đối tượng User của người dùng hiện tại.
+     * @param userId           ID người dùng hiện tại (lấy từ JWT).
+     * @param cartBatchRequest Danh sách thao tác, áp dụng theo thứ tự.
+     * @return Giỏ hàng sau khi áp dụng, đã tính giá.
      */
-    private User getCurrentUser() {
-        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return userRepository.findById(userDetails.getId()).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyCartBatch(@CurrentUserId Long userId, @Valid @RequestBody CartBatchRequest cartBatchRequest) {
+        CartChanges changes = new CartChanges();
+        for (CartOperationRequest operation : cartBatchRequest.getOperations()) {
+            switch (operation.getType()) {
+                case ADD:
+                    changes.add(operation.getProductId(), requireQuantity(operation));
+                    break;
+                case SET:
+                    changes.set(operation.getProductId(), requireQuantity(operation));
+                    break;
+                default:
+                    changes.remove(operation.getProductId());
+            }
+        }
+        return ResponseEntity.ok(cartService.apply(userId, changes));
+    }
 
+    private static int requireQuantity(CartOperationRequest operation) {
+        if (operation.getQuantity() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity is required for " + operation.getType());
+        }
+        return operation.getQuantity();
     }
 }
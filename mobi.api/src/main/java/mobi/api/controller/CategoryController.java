@@ -1,8 +1,14 @@
 package mobi.api.controller;
 
 import jakarta.validation.Valid;
+import mobi.api.payload.response.CategoryResponse;
+import mobi.api.payload.response.CategoryTreeResponse;
 import mobi.api.payload.response.MessageResponse;
+import mobi.api.payload.response.ProductPageResponse;
 import mobi.api.service.CategoryService;
+import mobi.api.service.CategoryTree;
+import mobi.api.service.CategoryTreeService;
+import mobi.api.service.ProductService;
 import mobi.model.entity.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,10 +29,14 @@ import java.util.Optional;
 @CrossOrigin(value = "*", maxAge = 3600)
 public class CategoryController {
     private final CategoryService categoryService;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductService productService;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CategoryTreeService categoryTreeService, ProductService productService) {
         this.categoryService = categoryService;
+        this.categoryTreeService = categoryTreeService;
+        this.productService = productService;
     }
 
     /**
@@ -38,11 +48,61 @@ public class CategoryController {
      */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("permitAll()")
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
+    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+        List<CategoryResponse> categories = categoryService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
+    /**
+     * Lấy toàn bộ cây danh mục từ ảnh chụp trong bộ nhớ (không truy vấn DB).
+     * Mọi người đều có thể truy cập.
+     * GET /api/categories/tree
+     *
+     * @return Danh sách các danh mục gốc kèm con cháu.
+     */
+    @GetMapping(value = "/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<List<CategoryTreeResponse>> getCategoryTree() {
+        return ResponseEntity.ok(categoryTreeService.getTree().roots());
+    }
+
+    /**
+     * Lấy cây con bắt đầu từ một danh mục.
+     * Mọi người đều có thể truy cập.
+     * GET /api/categories/{id}/subtree
+     *
+     * @param id ID của danh mục gốc của cây con.
+     * @return ResponseEntity chứa cây con hoặc status NOT_FOUND.
+     */
+    @GetMapping(value = "/{id}/subtree", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<CategoryTreeResponse> getCategorySubtree(@PathVariable Long id) {
+        CategoryTreeResponse subtree = categoryTreeService.getTree().subtree(id);
+        return subtree != null ? ResponseEntity.ok(subtree) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Lấy sản phẩm thuộc danh mục và mọi danh mục con cháu của nó (mới nhất trước, phân trang keyset).
+     * Mọi người đều có thể truy cập.
+     * GET /api/categories/{id}/products?cursor=...&size=20
+     *
+     * @param id     ID của danh mục.
+     * @param cursor Cursor trả về từ trang trước, bỏ trống nếu là trang đầu.
+     * @param size   Số sản phẩm mỗi trang (tối đa 100).
+     * @return ResponseEntity chứa trang sản phẩm hoặc status NOT_FOUND.
+     */
+    @GetMapping(value = "/{id}/products", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<ProductPageResponse> getSubtreeProducts(@PathVariable Long id,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        CategoryTree tree = categoryTreeService.getTree();
+        if (!tree.contains(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(productService.getProductPageInCategories(tree.descendantIds(id), cursor, size));
+    }
+
     /**
      * Lấy danh mục theo ID.
      * Mọi người đều có thể truy cập.
@@ -53,8 +113,8 @@ public class CategoryController {
      */
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("permitAll()")
-    public ResponseEntity<Category> getCategoryById(@PathVariable Long id) {
-        Optional<Category> category = categoryService.getCategoryById(id);
+    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long id) {
+        Optional<CategoryResponse> category = categoryService.getCategoryById(id);
         return category.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -72,7 +132,7 @@ public class CategoryController {
         if (categoryService.existsByName(category.getName())) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Category name is already in use!"));
         }
-        Category newCategory = categoryService.createCategory(category);
+        CategoryResponse newCategory = categoryService.createCategory(category);
         return ResponseEntity.status(HttpStatus.CREATED).body(newCategory);
     }
 
@@ -88,7 +148,7 @@ public class CategoryController {
     @PutMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateCategory(@PathVariable Long id, @Valid @RequestBody Category categoryDetails) {
-        Optional<Category> updatedCategory = categoryService.updateCategory(id, categoryDetails);
+        Optional<CategoryResponse> updatedCategory = categoryService.updateCategory(id, categoryDetails);
         return updatedCategory.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
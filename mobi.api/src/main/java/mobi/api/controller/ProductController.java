@@ -1,41 +1,119 @@
 package mobi.api.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import mobi.api.payload.request.ProductRequest;
+import mobi.api.payload.request.ProductSort;
+import mobi.api.payload.response.ProductPageResponse;
+import mobi.api.payload.response.ProductResponse;
+import mobi.api.service.ProductExportService;
+import mobi.api.service.ProductSearchService;
 import mobi.api.service.ProductService;
 import mobi.model.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductSearchService productSearchService;
+    private final Duration exportTimeout;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductExportService productExportService, ProductSearchService productSearchService,
+                             @Value("${mobi.product-export.timeout:30m}") Duration exportTimeout) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productSearchService = productSearchService;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
-     * Lấy tất cả các sản phẩm.
-     * GET /api/products
+     * Lấy danh sách sản phẩm theo trang (phân trang keyset/cursor).
+     * GET /api/products?categoryId=&minPrice=&maxPrice=&sort=NEWEST&cursor=&size=20
      *
-     * @return Danh sách các sản phẩm.
+     * @param categoryId ID danh mục cần lọc (tùy chọn).
+     * @param minPrice   Giá tối thiểu (tùy chọn).
+     * @param maxPrice   Giá tối đa (tùy chọn).
+     * @param sort       Kiểu sắp xếp: NEWEST, PRICE_ASC, PRICE_DESC, NAME_ASC.
+     * @param cursor     Giá trị nextCursor của trang trước (tùy chọn).
+     * @param size       Số sản phẩm mỗi trang (tối đa 100).
+     * @return Trang sản phẩm kèm cursor của trang kế tiếp.
      */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     @PreAuthorize("permitAll()")
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ProductPageResponse getProducts(@RequestParam(required = false) Long categoryId,
+                                           @RequestParam(required = false) BigDecimal minPrice,
+                                           @RequestParam(required = false) BigDecimal maxPrice,
+                                           @RequestParam(defaultValue = "NEWEST") ProductSort sort,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return productService.getProductPage(categoryId, minPrice, maxPrice, sort, cursor, size);
+    }
+
+    /**
+     * Tìm kiếm sản phẩm theo từ khóa (tên, mô tả, tên danh mục), không phân biệt dấu tiếng Việt.
+     * Mọi người đều có thể truy cập.
+     * GET /api/products/search?q=dien thoai&limit=20
+     *
+     * @param q     Từ khóa tìm kiếm.
+     * @param limit Số kết quả tối đa (tối đa 100).
+     * @return Danh sách sản phẩm theo thứ tự liên quan giảm dần.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    @PreAuthorize("permitAll()")
+    public List<ProductResponse> searchProducts(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return productSearchService.search(q, limit);
+    }
+
+    /**
+     * Xuất toàn bộ catalog dưới dạng NDJSON (mỗi dòng một sản phẩm), có thể nén GZIP.
+     * Dữ liệu được stream thẳng ra response (trên luồng async) nên client nhận dòng đầu tiên ngay lập tức.
+     * Thời gian tối đa là mobi.product-export.timeout, chỉ áp dụng cho endpoint này.
+     * Chỉ ADMIN mới có thể truy cập.
+     * GET /api/products/export?gzip=true
+     *
+     * @param gzip true nếu muốn nén GZIP.
+     * @return Tác vụ async ghi dữ liệu ra response.
+     */
+    @GetMapping(value = "/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> exportProducts(@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response) {
+        response.setContentType(APPLICATION_NDJSON.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products.ndjson" + (gzip ? ".gz" : ""));
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            OutputStream outputStream = response.getOutputStream();
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192, true) : outputStream;
+            long count = productExportService.exportNdjson(out);
+            logger.info("Exported {} products", count);
+            return null;
+        });
     }
 
     /**
@@ -48,9 +126,9 @@ public class ProductController {
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Product> createProduct(@RequestBody ProductRequest productRequest) {
+    public ResponseEntity<ProductResponse> createProduct(@RequestBody ProductRequest productRequest) {
         System.out.println("ProductController: createProduct called with name: " + productRequest.getName());
-        Product savedProduct = productService.createProduct(productRequest);
+        ProductResponse savedProduct = productService.createProduct(productRequest);
         // Đảm bảo savedProduct không null trước khi trả về
         if (savedProduct != null) {
             return new ResponseEntity<>(savedProduct, HttpStatus.CREATED);
@@ -71,9 +149,9 @@ public class ProductController {
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("permitAll()")
     @ResponseBody
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         System.out.println("ProductController: getProductById called for ID: " + id);
-        Optional<Product> product = productService.getProductById(id);
+        Optional<ProductResponse> product = productService.getProductById(id);
 
         return product.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -90,9 +168,9 @@ public class ProductController {
     @PutMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody ProductRequest productRequest) {
+    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody ProductRequest productRequest) {
         System.out.println("ProductController: updateProduct called for ID: " + id);
-        Optional<Product> updatedProduct = productService.updateProduct(id, productRequest);
+        Optional<ProductResponse> updatedProduct = productService.updateProduct(id, productRequest);
         return updatedProduct.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
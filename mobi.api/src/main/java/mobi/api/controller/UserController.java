@@ -1,17 +1,26 @@
 package mobi.api.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import mobi.api.kafka.PasswordResetProducer;
+import mobi.api.kafka.NotificationEvent;
+import mobi.api.kafka.NotificationProducer;
+import mobi.api.kafka.NotificationType;
+import mobi.api.kafka.UserChangedEvent;
 import mobi.api.payload.request.PasswordResetRequest;
 import mobi.api.payload.request.UserUpdateRequest;
 import mobi.api.payload.response.MessageResponse;
-import mobi.api.repository.PasswordResetTokenRepository;
+import mobi.api.payload.response.UserPageResponse;
+import mobi.api.payload.response.UserResponse;
 import mobi.api.repository.RoleRepository;
 import mobi.api.repository.UserRepository;
+import mobi.api.security.services.PasswordResetTokenStore;
+import mobi.api.security.services.TokenVersionService;
 import mobi.api.security.services.UserDetailsImpl;
-import mobi.api.service.EmailService;
+import mobi.api.service.OutboxService;
+import mobi.api.service.UserImportService;
+import mobi.api.service.UserListService;
 import mobi.model.entity.auth.ERole;
-import mobi.model.entity.auth.PasswordResetToken;
 import mobi.model.entity.auth.Role;
 import mobi.model.entity.auth.User;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,10 +30,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,34 +58,63 @@ public class UserController {
     PasswordEncoder encoder;
 
     @Autowired
-    PasswordResetTokenRepository passwordResetToken;
+    PasswordResetTokenStore passwordResetTokenStore;
 
     @Autowired
-    PasswordResetProducer passwordResetProducer;
+    NotificationProducer notificationProducer;
 
     @Autowired
-    EmailService emailService;
+    TokenVersionService tokenVersionService;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    UserImportService userImportService;
+
+    @Autowired
+    UserListService userListService;
 
     @Value("${mobi.app.frontendUrl}")
     private String frontendUrl;
 
     /**
-     * Lấy tất cả người dùng. Chỉ ADMIN mới có thể truy cập.
-     * GET /api/users
+     * Lấy danh sách người dùng theo trang (phân trang keyset/cursor theo username). Chỉ ADMIN mới có thể truy cập.
+     * GET /api/users?role=ROLE_ADMIN&username=ad&emailDomain=example.com&cursor=&size=20
      *
-     * @return Danh sách tất cả người dùng.
+     * @param role        Vai trò cần lọc (tùy chọn).
+     * @param username    Tiền tố username (tùy chọn).
+     * @param emailDomain Tên miền email (tùy chọn).
+     * @param cursor      Giá trị nextCursor của trang trước (tùy chọn).
+     * @param size        Số người dùng mỗi trang (tối đa 100).
+     * @return Trang người dùng kèm cursor của trang kế tiếp.
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        // Gửi message đến Kafka producer để xử lý bất đồng bộ
-        for (int i = 0; i < 100; i++) {
-            passwordResetProducer.sendMessage(i);
-        }
-        List<User> users = userRepository.findAll();
-        // Loại bỏ password trước khi trả data
-        users.forEach(user -> user.setPassword(null));
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserPageResponse> getUsers(@RequestParam(required = false) ERole role,
+                                                     @RequestParam(required = false) String username,
+                                                     @RequestParam(required = false) String emailDomain,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userListService.getUserPage(role, username, emailDomain, cursor, size));
+    }
+
+    /**
+     * Nhập người dùng hàng loạt từ file CSV (text/csv) hoặc NDJSON (application/x-ndjson). Chỉ ADMIN mới có thể truy cập.
+     * Xử lý đồng bộ trên luồng của request (không bị giới hạn thời gian của async request) và trả về NDJSON
+     * gồm lỗi từng dòng, tiến độ sau mỗi lô và dòng tổng kết.
+     * POST /api/users/import
+     *
+     * @param request  Request có body là nội dung file.
+     * @param response Response nhận báo cáo NDJSON.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserImportService.Format format = request.getContentType().startsWith("text/csv") ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        userImportService.importUsers(request.getInputStream(), format, response.getOutputStream());
     }
 
     /**
@@ -88,15 +129,13 @@ public class UserController {
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or #id == authentication.principal.id")
     public ResponseEntity<?> getUserById(@PathVariable Long id, @AuthenticationPrincipal UserDetailsImpl userPrincipal) {
-        Optional<User> userOptional = userRepository.findById(id);
+        Optional<User> userOptional = userRepository.findWithRolesById(id);
 
         if (userOptional.isEmpty()) {
             return new ResponseEntity<>(new MessageResponse("User not found with id: " + id), HttpStatus.NOT_FOUND);
         }
-        User user = userOptional.get();
-        user.setPassword(null);
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(toResponse(userOptional.get()));
     }
 
     /**
@@ -111,8 +150,9 @@ public class UserController {
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or #id == authentication.principal.id")
+    @Transactional
     public ResponseEntity<?> updateUser(@PathVariable Long id, @Valid @RequestBody UserUpdateRequest userUpdateRequest, @AuthenticationPrincipal UserDetailsImpl userPrincipal) {
-        Optional<User> userOptional = userRepository.findById(id);
+        Optional<User> userOptional = userRepository.findWithRolesById(id);
 
         if (userOptional.isEmpty()) {
             return new ResponseEntity<>(new MessageResponse("User not found with id: " + id), HttpStatus.NOT_FOUND);
@@ -125,56 +165,72 @@ public class UserController {
             return new ResponseEntity<>(new MessageResponse("Access Denied: You are not authorized to update this user."), HttpStatus.FORBIDDEN);
         }
 
+        // Kiểm tra hết trước khi sửa entity: trong transaction, thay đổi trên entity được ghi khi commit kể cả khi trả lỗi
+        boolean changeUsername = userUpdateRequest.getUsername() != null && !userUpdateRequest.getUsername().isEmpty() && !userUpdateRequest.getUsername().equals(user.getUsername());
+        boolean changeEmail = userUpdateRequest.getEmail() != null && !userUpdateRequest.getEmail().isEmpty() && !userUpdateRequest.getEmail().equals(user.getEmail());
+        boolean changeRoles = userUpdateRequest.getRoles() != null && !userUpdateRequest.getRoles().isEmpty();
+        if (changeUsername && userRepository.existsByUsername(userUpdateRequest.getUsername())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
+        }
+        if (changeEmail && userRepository.existsByEmail(userUpdateRequest.getEmail())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!"));
+        }
+        if (changeRoles && userPrincipal.getAuthorities().stream().noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return new ResponseEntity<>(new MessageResponse("Access Denied: Only ADMIN can change roles."), HttpStatus.FORBIDDEN);
+        }
+
+        // Đổi username, mật khẩu hoặc vai trò sẽ thu hồi mọi JWT đã cấp (tăng phiên bản token)
+        boolean revokeTokens = false;
+
         // Cập nhật username
-        if (userUpdateRequest.getUsername() != null && !userUpdateRequest.getUsername().isEmpty() && !userUpdateRequest.getUsername().equals(user.getUsername())) {
-            if (userRepository.existsByUsername(userUpdateRequest.getUsername())) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
-            }
+        if (changeUsername) {
             user.setUsername(userUpdateRequest.getUsername());
+            revokeTokens = true;
         }
 
         // Cập nhật email
-        if (userUpdateRequest.getEmail() != null && !userUpdateRequest.getEmail().isEmpty() && !userUpdateRequest.getEmail().equals(user.getEmail())) {
-            if (userRepository.existsByEmail(userUpdateRequest.getEmail())) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!"));
-            }
+        if (changeEmail) {
             user.setEmail(userUpdateRequest.getEmail());
         }
 
         // Cập nhật mật khẩu (nếu có)
         if (userUpdateRequest.getPassword() != null && !userUpdateRequest.getPassword().isEmpty()) {
             user.setPassword(encoder.encode(userUpdateRequest.getPassword()));
+            revokeTokens = true;
         }
 
-        // Cập nhật vai trò (chỉ ADMIN mới có thể thực hiện)
-        if (userUpdateRequest.getRoles() != null && !userUpdateRequest.getRoles().isEmpty()) {
-            if (userPrincipal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
-                Set<Role> roles = new HashSet<>();
-                userUpdateRequest.getRoles().forEach(roleStr -> {
-                    switch (roleStr) {
-                        case "admin":
-                            Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                                    .orElseThrow(() -> new RuntimeException("Error: Role Admin is not found."));
-                            roles.add(adminRole);
-                            break;
-                        case "user":
-                            Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-                                    .orElseThrow(() -> new RuntimeException("Error: Role User is not found."));
-                            roles.add(userRole);
-                            break;
-                        default:
-                            // Bỏ qua các vai trò không hợp lệ hoặc không xác định
-                    }
-                });
-                user.setRoles(roles);
-            } else {
-                return new ResponseEntity<>(new MessageResponse("Access Denied: Only ADMIN can change roles."), HttpStatus.FORBIDDEN);
-            }
+        // Cập nhật vai trò (chỉ ADMIN mới có thể thực hiện, đã kiểm tra ở trên)
+        if (changeRoles) {
+            Set<Role> roles = new HashSet<>();
+            userUpdateRequest.getRoles().forEach(roleStr -> {
+                switch (roleStr) {
+                    case "admin":
+                        Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
+                                .orElseThrow(() -> new RuntimeException("Error: Role Admin is not found."));
+                        roles.add(adminRole);
+                        break;
+                    case "user":
+                        Role userRole = roleRepository.findByName(ERole.ROLE_USER)
+                                .orElseThrow(() -> new RuntimeException("Error: Role User is not found."));
+                        roles.add(userRole);
+                        break;
+                    default:
+                        // Bỏ qua các vai trò không hợp lệ hoặc không xác định
+                }
+            });
+            user.setRoles(roles);
+            revokeTokens = true;
         }
 
+        if (revokeTokens) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
         User updatedUser = userRepository.save(user);
-        updatedUser.setPassword(null);
-        return ResponseEntity.ok(updatedUser);
+        recordUserChange(updatedUser, UserChangedEvent.Change.UPDATED);
+        if (revokeTokens) {
+            tokenVersionService.evictAfterCommit(updatedUser.getId());
+        }
+        return ResponseEntity.ok(toResponse(updatedUser));
     }
 
     /**
@@ -186,11 +242,14 @@ public class UserController {
      */
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         if (!userRepository.existsById(id)) {
             return new ResponseEntity<>(new MessageResponse("User not found with id: " + id), HttpStatus.NOT_FOUND);
         }
         userRepository.deleteById(id);
+        outboxService.record(UserChangedEvent.TOPIC, id, new UserChangedEvent(id, UserChangedEvent.Change.DELETED, null, null));
+        tokenVersionService.evictAfterCommit(id);
         return ResponseEntity.ok(new MessageResponse("User deleted successfully!"));
     }
 
@@ -205,6 +264,7 @@ public class UserController {
      */
     @PostMapping("/change-password")
     @PreAuthorize("isAuthenticated()")
+    @Transactional
     public ResponseEntity<?> changePassword(@RequestParam String currentPassword, @RequestParam String newPassword, @AuthenticationPrincipal UserDetailsImpl userPrincipal) {
         Optional<User> userOptional = userRepository.findById(userPrincipal.getId());
         if (userOptional.isEmpty()) {
@@ -215,7 +275,10 @@ public class UserController {
             return new ResponseEntity<>(new MessageResponse("Invalid current password."), HttpStatus.BAD_REQUEST);
         }
         user.setPassword(encoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        tokenVersionService.evictAfterCommit(user.getId());
+        publishPasswordChanged(user);
         return ResponseEntity.ok(new MessageResponse("Password changed successfully!"));
     }
 
@@ -227,6 +290,7 @@ public class UserController {
      * @return ResponseEntity với thông báo thành công hoặc lỗi.
      */
     @PostMapping("/forgot-password")
+    @Transactional
     public ResponseEntity<?> forgotPassword(@RequestParam String email) {
         Optional<User> userOptional = userRepository.findByEmail(email);
         if (userOptional.isEmpty()) {
@@ -234,13 +298,12 @@ public class UserController {
         }
 
         User user = userOptional.get();
-        PasswordResetToken token = new PasswordResetToken(user);
-        passwordResetToken.save(token);
-
-        String resetLink = frontendUrl + "/reset-password?token=" + token.getToken();
-        String emailContent = "Để khôi phục mật khẩu, vui lòng truy cập liên kết sau: " + resetLink;
+        String token = passwordResetTokenStore.issue(user.getId());
 
-        emailService.sendEmail(user.getEmail(), "Khôi phục mật khẩu", emailContent);
+        // Chỉ đưa thông báo vào hàng đợi Kafka; NotificationConsumer dựng và gửi email (không chờ SMTP)
+        String resetLink = frontendUrl + "/reset-password?token=" + token;
+        notificationProducer.publish(new NotificationEvent(NotificationType.PASSWORD_RESET_REQUESTED, user.getId(),
+                user.getEmail(), user.getUsername(), Map.of("resetLink", resetLink)));
         return ResponseEntity.ok(new MessageResponse("If your email exists in our system, a password reset link has been sent."));
     }
 
@@ -252,23 +315,47 @@ public class UserController {
      * @return ResponseEntity với thông báo thành công hoặc lỗi.
      */
     @PostMapping("/reset-password")
+    @Transactional
     public ResponseEntity<?> resetPassword(@Valid @RequestBody PasswordResetRequest request) {
 
-        // test kafka
-        // Gửi message đến Kafka producer để xử lý bất đồng bộ
-        passwordResetProducer.sendMessage(request.getNewPassword());
+        // Kiểm tra và hủy token trong một thao tác (token chỉ dùng được một lần)
+        Optional<User> userOptional = passwordResetTokenStore.consume(request.getToken()).flatMap(userRepository::findById);
 
-        Optional<PasswordResetToken> tokenOptional = passwordResetToken.findByToken(request.getToken());
-
-        if (tokenOptional.isEmpty() || tokenOptional.get().isExpired()) {
+        if (userOptional.isEmpty()) {
             return new ResponseEntity<>(new MessageResponse("Invalid or expired password reset token."), HttpStatus.BAD_REQUEST);
         }
 
-        User user = tokenOptional.get().getUser();
+        User user = userOptional.get();
         user.setPassword(encoder.encode(request.getNewPassword()));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        tokenVersionService.evictAfterCommit(user.getId());
 
-        passwordResetToken.delete(tokenOptional.get()); // Xóa token sau khi đã sử dụng
+        publishPasswordChanged(user);
         return ResponseEntity.ok(new MessageResponse("Password has been reset successfully."));
     }
 
+    /**
+     * Báo cho người dùng mật khẩu vừa được đổi (email gửi bất đồng bộ qua outbox/Kafka, không kèm mật khẩu).
+     */
+    private void publishPasswordChanged(User user) {
+        recordUserChange(user, UserChangedEvent.Change.PASSWORD_CHANGED);
+        notificationProducer.publish(new NotificationEvent(NotificationType.PASSWORD_CHANGED, user.getId(),
+                user.getEmail(), user.getUsername(), Map.of()));
+    }
+
+    /**
+     * Ghi sự kiện thay đổi tài khoản vào outbox trong transaction hiện tại.
+     */
+    private void recordUserChange(User user, UserChangedEvent.Change change) {
+        outboxService.record(UserChangedEvent.TOPIC, user.getId(), new UserChangedEvent(user.getId(), change, user.getUsername(), user.getEmail()));
+    }
+
+    /**
+     * Chuyển User (đã nạp roles) sang UserResponse, không bao gồm mật khẩu.
+     */
+    private static UserResponse toResponse(User user) {
+        List<String> roles = user.getRoles().stream().map(role -> role.getName().name()).toList();
+        return new UserResponse(user.getId(), user.getUsername(), user.getEmail(), roles);
+    }
 }
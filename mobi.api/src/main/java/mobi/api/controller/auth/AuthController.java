@@ -1,6 +1,8 @@
 package mobi.api.controller.auth;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import mobi.api.kafka.UserChangedEvent;
 import mobi.api.payload.request.LoginRequest;
 import mobi.api.payload.request.SignupRequest;
 import mobi.api.payload.response.JwtResponse;
@@ -8,7 +10,11 @@ import mobi.api.payload.response.MessageResponse;
 import mobi.api.repository.RoleRepository;
 import mobi.api.repository.UserRepository;
 import mobi.api.security.jwt.JwtUtils;
+import mobi.api.security.jwt.JwtVerifier;
+import mobi.api.security.jwt.TokenRevocationService;
+import mobi.api.security.jwt.VerifiedToken;
 import mobi.api.security.services.UserDetailsImpl;
+import mobi.api.service.OutboxService;
 import mobi.model.entity.auth.ERole;
 import mobi.model.entity.auth.Role;
 import mobi.model.entity.auth.User;
@@ -19,6 +25,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashSet;
@@ -48,6 +56,15 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    JwtVerifier jwtVerifier;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    OutboxService outboxService;
+
     /**
      * Endpoint để đăng nhập người dùng và nhận JWT.
      * POST /api/auth/signin
@@ -79,6 +96,7 @@ public class AuthController {
      * @return ResponseEntity chứa thông báo thành công hoặc lỗi.
      */
     @PostMapping("/signup")
+    @Transactional
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         // Kiểm tra username đã tồn tại chưa
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
@@ -116,7 +134,29 @@ public class AuthController {
         }
         user.setRoles(roles);
         userRepository.save(user);
+        outboxService.record(UserChangedEvent.TOPIC, user.getId(),
+                new UserChangedEvent(user.getId(), UserChangedEvent.Change.CREATED, user.getUsername(), user.getEmail()));
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    /**
+     * Endpoint để đăng xuất: thu hồi JWT hiện tại trên mọi instance cho tới khi token hết hạn.
+     * POST /api/auth/signout
+     *
+     * @param request Yêu cầu chứa header Authorization: Bearer <token>.
+     * @return ResponseEntity chứa thông báo thành công.
+     */
+    @PostMapping("/signout")
+    public ResponseEntity<?> logoutUser(HttpServletRequest request) {
+        String headerAuth = request.getHeader("Authorization");
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            String jwt = headerAuth.substring(7);
+            VerifiedToken verified = jwtVerifier.verify(jwt);
+            if (verified != null) {
+                tokenRevocationService.revoke(jwt, verified);
+            }
+        }
+        return ResponseEntity.ok(new MessageResponse("You've been signed out!"));
+    }
 }
@@ -0,0 +1,132 @@
+package mobi.api.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lớp Kafka Consumer nhận thông báo theo lô, dựng email từ template và gửi qua SMTP.
+ * Cả lô được gửi trên cùng một kết nối SMTP (JavaMailSender.send(...) nhiều message); email lỗi được thử lại
+ * với thời gian chờ tăng dần, hết lượt thì chuyển sang topic dead-letter "notification-topic.DLT".
+ * Bản ghi không đọc được (sai định dạng) được DefaultErrorHandler chuyển sang DLT (xem KafkaConsumerConfig).
+ */
+@Component
+public class NotificationConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationConsumer.class);
+    public static final String DLT_TOPIC = NotificationProducer.TOPIC + ".DLT";
+
+    private final JavaMailSender mailSender;
+    private final NotificationTemplates templates;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Counter sent;
+    private final Counter deadLettered;
+
+    @Autowired
+    public NotificationConsumer(JavaMailSender mailSender, NotificationTemplates templates, KafkaTemplate<String, Object> kafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${mobi.notification.max-attempts:3}") int maxAttempts,
+                                @Value("${mobi.notification.backoff:1s}") Duration backoff) {
+        this.mailSender = mailSender;
+        this.templates = templates;
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.sent = counter(meterRegistry, "sent");
+        this.deadLettered = counter(meterRegistry, "dead-lettered");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mobi.notification.emails")
+                .description("Số email thông báo theo kết quả")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nhận một lô sự kiện. Gặp bản ghi không đọc được thì gửi phần trước nó rồi báo lỗi tại đúng vị trí đó,
+     * để error handler commit phần đã xử lý, chuyển bản ghi lỗi sang DLT và giao lại phần còn lại.
+     */
+    @KafkaListener(topics = NotificationProducer.TOPIC)
+    public void onBatch(List<ConsumerRecord<String, NotificationEvent>> records) {
+        List<NotificationEvent> events = new ArrayList<>(records.size());
+        int failedIndex = -1;
+        for (int i = 0; i < records.size(); i++) {
+            NotificationEvent event = records.get(i).value();
+            if (event == null || event.getType() == null || event.getEmail() == null) {
+                failedIndex = i;
+                break;
+            }
+            events.add(event);
+        }
+
+        deliver(events);
+
+        if (failedIndex >= 0) {
+            throw new BatchListenerFailedException("Unreadable notification event", failedIndex);
+        }
+    }
+
+    private void deliver(List<NotificationEvent> events) {
+        // Map theo danh tính để tìm lại sự kiện của từng email lỗi trong MailSendException
+        Map<SimpleMailMessage, NotificationEvent> pending = new IdentityHashMap<>();
+        for (NotificationEvent event : events) {
+            pending.put(templates.render(event), event);
+        }
+
+        for (int attempt = 1; !pending.isEmpty() && attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                sleep(backoff.multipliedBy(attempt - 1));
+            }
+            int batchSize = pending.size();
+            try {
+                mailSender.send(pending.keySet().toArray(new SimpleMailMessage[0]));
+                sent.increment(batchSize);
+                pending.clear();
+            } catch (MailSendException e) {
+                // Chỉ giữ lại các email gửi lỗi, email còn lại đã gửi xong
+                Map<Object, Exception> failed = e.getFailedMessages();
+                if (!failed.isEmpty()) {
+                    pending.keySet().retainAll(failed.keySet());
+                    sent.increment(batchSize - pending.size());
+                }
+                logger.warn("Cannot send {} notification emails (attempt {}/{}): {}", pending.size(), attempt, maxAttempts, e.getMessage());
+            } catch (MailException e) {
+                // Lỗi kết nối/xác thực SMTP: cả lô chưa gửi được
+                logger.warn("Cannot send {} notification emails (attempt {}/{}): {}", pending.size(), attempt, maxAttempts, e.getMessage());
+            }
+        }
+
+        for (NotificationEvent event : pending.values()) {
+            deadLettered.increment();
+            kafkaTemplate.send(DLT_TOPIC, String.valueOf(event.getUserId()), event);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
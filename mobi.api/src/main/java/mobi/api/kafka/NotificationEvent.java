@@ -0,0 +1,79 @@
+package mobi.api.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sự kiện thông báo gửi tới topic "notification-topic", key là ID người dùng.
+ * Chỉ mang dữ liệu cần để dựng nội dung (không bao giờ chứa mật khẩu).
+ */
+public class NotificationEvent {
+    private NotificationType type;
+    private Long userId;
+    private String email;
+    private String username;
+    // Giá trị thay cho các biến {{...}} trong template
+    private Map<String, String> params = new HashMap<>();
+    private long createdAt;
+
+    public NotificationEvent() {
+    }
+
+    public NotificationEvent(NotificationType type, Long userId, String email, String username, Map<String, String> params) {
+        this.type = type;
+        this.userId = userId;
+        this.email = email;
+        this.username = username;
+        this.params = params;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public NotificationType getType() {
+        return type;
+    }
+
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
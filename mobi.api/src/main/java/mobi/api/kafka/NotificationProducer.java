@@ -0,0 +1,26 @@
+package mobi.api.kafka;
+
+import mobi.api.service.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đưa thông báo (email) vào hàng đợi qua outbox; OutboxRelay gửi lên Kafka, việc gửi thật do NotificationConsumer đảm nhận.
+ */
+@Component
+public class NotificationProducer {
+    public static final String TOPIC = "notification-topic";
+
+    @Autowired
+    private OutboxService outboxService;
+
+    /**
+     * Ghi sự kiện vào outbox trong transaction hiện tại, key là ID người dùng để các thông báo
+     * của cùng người dùng giữ đúng thứ tự.
+     *
+     * @param event Sự kiện thông báo.
+     */
+    public void publish(NotificationEvent event) {
+        outboxService.record(TOPIC, event.getUserId(), event);
+    }
+}
@@ -0,0 +1,58 @@
+package mobi.api.kafka;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Template email cho từng NotificationType, nạp một lần từ classpath:mail/{template}.txt.
+ * Dòng đầu là tiêu đề, phần còn lại là nội dung; {{username}}, {{email}} và các khóa trong params được thay thế.
+ */
+@Component
+public class NotificationTemplates {
+    private final Map<NotificationType, String[]> templates = new EnumMap<>(NotificationType.class);
+
+    public NotificationTemplates() {
+        for (NotificationType type : NotificationType.values()) {
+            ClassPathResource resource = new ClassPathResource("mail/" + type.getTemplate() + ".txt");
+            try {
+                String content = resource.getContentAsString(StandardCharsets.UTF_8);
+                templates.put(type, content.split("\\R", 2));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Missing mail template " + resource.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Dựng email từ sự kiện.
+     *
+     * @param event Sự kiện thông báo.
+     * @return Email sẵn sàng để gửi.
+     */
+    public SimpleMailMessage render(NotificationEvent event) {
+        String[] template = templates.get(event.getType());
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(event.getEmail());
+        message.setSubject(fill(template[0], event));
+        message.setText(fill(template.length > 1 ? template[1] : "", event));
+        return message;
+    }
+
+    private static String fill(String text, NotificationEvent event) {
+        String result = text.replace("{{username}}", String.valueOf(event.getUsername()))
+                .replace("{{email}}", String.valueOf(event.getEmail()));
+        if (event.getParams() != null) {
+            for (Map.Entry<String, String> param : event.getParams().entrySet()) {
+                result = result.replace("{{" + param.getKey() + "}}", String.valueOf(param.getValue()));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package mobi.api.kafka;
+
+/**
+ * Loại thông báo gửi qua Kafka; mỗi loại ứng với một template trong classpath:mail/.
+ */
+public enum NotificationType {
+    PASSWORD_RESET_REQUESTED("password-reset"),
+    PASSWORD_CHANGED("password-changed");
+
+    private final String template;
+
+    NotificationType(String template) {
+        this.template = template;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,68 @@
+package mobi.api.kafka;
+
+import java.math.BigDecimal;
+
+/**
+ * Sự kiện đơn hàng vừa được đặt, gửi tới topic "order-events" với key là ID đơn hàng.
+ */
+public class OrderPlacedEvent {
+    public static final String TOPIC = "order-events";
+
+    private Long orderId;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private int itemCount;
+    private long placedAt;
+
+    public OrderPlacedEvent() {
+    }
+
+    public OrderPlacedEvent(Long orderId, Long userId, BigDecimal totalAmount, int itemCount) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount;
+        this.placedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public long getPlacedAt() {
+        return placedAt;
+    }
+
+    public void setPlacedAt(long placedAt) {
+        this.placedAt = placedAt;
+    }
+}
@@ -0,0 +1,142 @@
+package mobi.api.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mobi.api.repository.OutboxRepository;
+import mobi.model.entity.OutboxEvent;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay đọc bảng outbox theo lô (SELECT ... FOR UPDATE SKIP LOCKED), gửi lên Kafka rồi xóa các dòng đã gửi
+ * trong cùng transaction. Gửi lỗi thì transaction rollback, các dòng được gửi lại ở lần sau (at-least-once).
+ * Payload đã là JSON nên dùng producer riêng với StringSerializer, có nén; header kiểu được gắn từ cột event_type
+ * để JsonDeserializer phía consumer đọc lại đúng lớp như khi gửi bằng JsonSerializer.
+ */
+@Component
+public class OutboxRelay implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DefaultKafkaProducerFactory<String, String> producerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration sendTimeout;
+    private final Counter published;
+    private final Timer lag;
+    private final Timer batchTimer;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, PlatformTransactionManager transactionManager,
+                       KafkaProperties kafkaProperties, MeterRegistry meterRegistry,
+                       @Value("${mobi.outbox.batch-size:200}") int batchSize,
+                       @Value("${mobi.outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                       @Value("${mobi.outbox.send-timeout:10s}") Duration sendTimeout,
+                       @Value("${mobi.outbox.compression:lz4}") String compression) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.sendTimeout = sendTimeout;
+
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Gom message của một lô vào ít request hơn
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        this.producerFactory = new DefaultKafkaProducerFactory<>(producerProperties);
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        this.published = Counter.builder("mobi.outbox.published")
+                .description("Số sự kiện outbox đã gửi lên Kafka")
+                .register(meterRegistry);
+        this.lag = Timer.builder("mobi.outbox.lag")
+                .description("Độ trễ từ lúc ghi outbox tới lúc Kafka xác nhận")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("mobi.outbox.batch")
+                .description("Thời gian xử lý một lô outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chạy định kỳ: gửi liên tiếp các lô đầy cho tới khi outbox cạn (hoặc đạt maxBatchesPerRun).
+     */
+    @Scheduled(fixedDelayString = "${mobi.outbox.poll-interval:500}")
+    public void relay() {
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Integer sent = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+                if (sent == null || sent < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // Các dòng vẫn nằm trong outbox và được gửi lại ở lần chạy sau
+            logger.warn("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+            record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, event.getEventType().getBytes(StandardCharsets.UTF_8));
+            futures.add(kafkaTemplate.send(record));
+            ids.add(event.getId());
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying outbox", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot publish outbox batch: " + e.getMessage(), e);
+        }
+
+        outboxRepository.deleteAllByIdInBatch(ids);
+        long now = System.currentTimeMillis();
+        for (OutboxEvent event : events) {
+            lag.record(Math.max(0, now - event.getCreatedAt().toEpochMilli()), TimeUnit.MILLISECONDS);
+        }
+        published.increment(events.size());
+        return events.size();
+    }
+
+    @Override
+    public void destroy() {
+        producerFactory.destroy();
+    }
+}
@@ -0,0 +1,73 @@
+package mobi.api.kafka;
+
+import java.math.BigDecimal;
+
+/**
+ * Sự kiện sản phẩm được tạo/cập nhật/xóa, gửi tới topic "product-events" với key là ID sản phẩm.
+ * Với DELETED chỉ có productId.
+ */
+public class ProductChangedEvent {
+    public static final String TOPIC = "product-events";
+
+    public enum Change {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Long productId;
+    private Change change;
+    private String name;
+    private BigDecimal price;
+    private Long categoryId;
+
+    public ProductChangedEvent() {
+    }
+
+    public ProductChangedEvent(Long productId, Change change, String name, BigDecimal price, Long categoryId) {
+        this.productId = productId;
+        this.change = change;
+        this.name = name;
+        this.price = price;
+        this.categoryId = categoryId;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public void setChange(Change change) {
+        this.change = change;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+}
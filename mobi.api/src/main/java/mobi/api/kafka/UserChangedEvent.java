@@ -0,0 +1,61 @@
+package mobi.api.kafka;
+
+/**
+ * Sự kiện tài khoản người dùng thay đổi, gửi tới topic "user-events" với key là ID người dùng.
+ * Không bao giờ chứa mật khẩu hay hash.
+ */
+public class UserChangedEvent {
+    public static final String TOPIC = "user-events";
+
+    public enum Change {
+        CREATED, UPDATED, PASSWORD_CHANGED, DELETED
+    }
+
+    private Long userId;
+    private Change change;
+    private String username;
+    private String email;
+
+    public UserChangedEvent() {
+    }
+
+    public UserChangedEvent(Long userId, Change change, String username, String email) {
+        this.userId = userId;
+        this.change = change;
+        this.username = username;
+        this.email = email;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public void setChange(Change change) {
+        this.change = change;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -0,0 +1,27 @@
+package mobi.api.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO cho yêu cầu áp dụng nhiều thao tác lên giỏ hàng trong một lần gọi.
+ * Các thao tác được áp dụng theo thứ tự gửi lên.
+ */
+public class CartBatchRequest {
+    @NotEmpty
+    @Size(max = 100)
+    private List<@NotNull @Valid CartOperationRequest> operations;
+
+    // Getters và Setters
+    public List<CartOperationRequest> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<CartOperationRequest> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,44 @@
+package mobi.api.payload.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO cho một thao tác trong lô cập nhật giỏ hàng.
+ */
+public class CartOperationRequest {
+    @NotNull
+    private CartOperationType type;
+
+    @NotNull
+    private Long productId;
+
+    // Bắt buộc với ADD và SET
+    @Positive
+    private Integer quantity;
+
+    // Getters và Setters
+    public CartOperationType getType() {
+        return type;
+    }
+
+    public void setType(CartOperationType type) {
+        this.type = type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
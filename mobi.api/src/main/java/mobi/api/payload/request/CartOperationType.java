@@ -0,0 +1,10 @@
+package mobi.api.payload.request;
+
+/**
+ * Các kiểu thao tác trong một lô cập nhật giỏ hàng.
+ */
+public enum CartOperationType {
+    ADD,    // Cộng thêm số lượng (tạo mới nếu chưa có)
+    SET,    // Đặt số lượng (tạo mới nếu chưa có)
+    REMOVE  // Xóa khỏi giỏ, bỏ qua quantity
+}
@@ -0,0 +1,12 @@
+package mobi.api.payload.request;
+
+/**
+ * Các kiểu sắp xếp được hỗ trợ cho danh sách sản phẩm.
+ * Mỗi kiểu tương ứng với một truy vấn keyset và một index (price, id) / (name, id) / id.
+ */
+public enum ProductSort {
+    NEWEST,
+    PRICE_ASC,
+    PRICE_DESC,
+    NAME_ASC
+}
@@ -0,0 +1,76 @@
+package mobi.api.payload.response;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO chỉ đọc cho một dòng trong giỏ hàng: sản phẩm, đơn giá, số lượng và thành tiền (tính ở server).
+ */
+public class CartItemResponse {
+    private Long productId;
+    private String productName;
+    private String categoryName;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private BigDecimal lineTotal;
+
+    public CartItemResponse() {
+    }
+
+    public CartItemResponse(Long productId, String productName, String categoryName, BigDecimal unitPrice, Integer quantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.categoryName = categoryName;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+        this.lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getLineTotal() {
+        return lineTotal;
+    }
+
+    public void setLineTotal(BigDecimal lineTotal) {
+        this.lineTotal = lineTotal;
+    }
+}
@@ -0,0 +1,50 @@
+package mobi.api.payload.response;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO cho giỏ hàng đã tính giá: các dòng sản phẩm, tổng số lượng và tổng tiền (tính ở server).
+ */
+public class CartResponse {
+    private List<CartItemResponse> items = new ArrayList<>();
+    private int itemCount;
+    private BigDecimal grandTotal = BigDecimal.ZERO;
+
+    public CartResponse() {
+    }
+
+    public CartResponse(List<CartItemResponse> items) {
+        this.items = items;
+        for (CartItemResponse item : items) {
+            this.itemCount += item.getQuantity();
+            this.grandTotal = this.grandTotal.add(item.getLineTotal());
+        }
+    }
+
+    // Getters and Setters
+    public List<CartItemResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItemResponse> items) {
+        this.items = items;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public BigDecimal getGrandTotal() {
+        return grandTotal;
+    }
+
+    public void setGrandTotal(BigDecimal grandTotal) {
+        this.grandTotal = grandTotal;
+    }
+}
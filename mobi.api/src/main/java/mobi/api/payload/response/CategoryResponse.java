@@ -0,0 +1,55 @@
+package mobi.api.payload.response;
+
+/**
+ * DTO chỉ đọc cho danh mục, chỉ mang id của danh mục cha thay vì proxy LAZY.
+ */
+public class CategoryResponse {
+    private Long id;
+    private String name;
+    private String description;
+    private Long parentId;
+
+    // Constructor rỗng cần cho việc deserialize từ cache
+    public CategoryResponse() {
+    }
+
+    public CategoryResponse(Long id, String name, String description, Long parentId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.parentId = parentId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+}
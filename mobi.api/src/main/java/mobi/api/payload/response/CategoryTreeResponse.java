@@ -0,0 +1,67 @@
+package mobi.api.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO cho một nút trong cây danh mục, kèm các danh mục con (đệ quy).
+ */
+public class CategoryTreeResponse {
+    private Long id;
+    private String name;
+    private String description;
+    private Long parentId;
+    private List<CategoryTreeResponse> children = new ArrayList<>();
+
+    public CategoryTreeResponse() {
+    }
+
+    public CategoryTreeResponse(Long id, String name, String description, Long parentId, List<CategoryTreeResponse> children) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.parentId = parentId;
+        this.children = children;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public List<CategoryTreeResponse> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<CategoryTreeResponse> children) {
+        this.children = children;
+    }
+}
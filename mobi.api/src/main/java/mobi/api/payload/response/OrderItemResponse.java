@@ -0,0 +1,66 @@
+package mobi.api.payload.response;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO chỉ đọc cho một mặt hàng trong đơn hàng (chỉ id và tên sản phẩm, không kéo theo entity Product).
+ */
+public class OrderItemResponse {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal priceAtPurchase;
+
+    public OrderItemResponse() {
+    }
+
+    public OrderItemResponse(Long id, Long productId, String productName, Integer quantity, BigDecimal priceAtPurchase) {
+        this.id = id;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.priceAtPurchase = priceAtPurchase;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPriceAtPurchase() {
+        return priceAtPurchase;
+    }
+
+    public void setPriceAtPurchase(BigDecimal priceAtPurchase) {
+        this.priceAtPurchase = priceAtPurchase;
+    }
+}
@@ -0,0 +1,48 @@
+package mobi.api.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO cho một trang sản phẩm phân trang theo keyset (cursor).
+ * nextCursor là chuỗi mờ (opaque) mà client gửi lại để lấy trang kế tiếp.
+ */
+public class ProductPageResponse {
+    private List<ProductResponse> items = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ProductPageResponse() {
+    }
+
+    public ProductPageResponse(List<ProductResponse> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<ProductResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,78 @@
+package mobi.api.payload.response;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO chỉ đọc cho sản phẩm, được dựng trực tiếp từ truy vấn JPQL (constructor expression)
+ * nên không kéo theo proxy LAZY của Category khi serialize.
+ */
+public class ProductResponse {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private String description;
+    private Long categoryId;
+    private String categoryName;
+
+    // Constructor rỗng cần cho việc deserialize từ cache
+    public ProductResponse() {
+    }
+
+    public ProductResponse(Long id, String name, BigDecimal price, String description, Long categoryId, String categoryName) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.description = description;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+}
@@ -0,0 +1,83 @@
+package mobi.api.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Một dòng báo cáo của quá trình nhập người dùng hàng loạt (trả về dạng NDJSON).
+ * type là "error" (lỗi của một dòng dữ liệu), "progress" (sau mỗi lô) hoặc "summary" (dòng cuối).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportReport {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    // Số dòng trong file (bắt đầu từ 1), chỉ có ở báo cáo lỗi
+    private Long line;
+    private String message;
+    private long processed;
+    private long imported;
+    private long failed;
+
+    public UserImportReport() {
+    }
+
+    public UserImportReport(String type, Long line, String message, long processed, long imported, long failed) {
+        this.type = type;
+        this.line = line;
+        this.message = message;
+        this.processed = processed;
+        this.imported = imported;
+        this.failed = failed;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getLine() {
+        return line;
+    }
+
+    public void setLine(Long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,48 @@
+package mobi.api.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO cho một trang người dùng phân trang theo keyset (cursor).
+ * nextCursor là chuỗi mờ (opaque) mà client gửi lại để lấy trang kế tiếp.
+ */
+public class UserPageResponse {
+    private List<UserResponse> items = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+
+    public UserPageResponse() {
+    }
+
+    public UserPageResponse(List<UserResponse> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<UserResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
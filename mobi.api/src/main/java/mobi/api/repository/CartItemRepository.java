@@ -1,13 +1,16 @@
 package mobi.api.repository;
 
 import mobi.model.entity.CartItem;
-import mobi.model.entity.Product;
-import mobi.model.entity.auth.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Interface Repository để tương tác với entity CartItem trong cơ sở dữ liệu.
@@ -15,27 +18,166 @@ import java.util.Optional;
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     /**
-     * Tìm kiếm một mặt hàng trong giỏ hàng của một người dùng dựa trên sản phẩm.
+     * Tìm kiếm tất cả các mặt hàng trong giỏ hàng của một người dùng.
      *
-     * @param user    Người dùng sở hữu giỏ hàng.
-     * @param product Sản phẩm cần tìm.
-     * @return Một Optional chứa CartItem nếu tìm thấy.
+     * @param userId ID người dùng sở hữu giỏ hàng.
+     * @return Danh sách các CartItem theo thứ tự thêm vào.
      */
-    Optional<CartItem> findByUserAndProduct(User user, Product product);
+    List<CartItem> findByUserIdOrderById(Long userId);
 
     /**
-     * Tìm kiếm tất cả các mặt hàng trong giỏ hàng của một người dùng.
+     * Đặt số lượng của một sản phẩm trong giỏ bằng một câu lệnh (dựa trên unique key (user_id, product_id)):
+     * thêm dòng nếu chưa có, ngược lại ghi số lượng mới. updated_at chỉ đổi khi số lượng thực sự thay đổi
+     * (MySQL gán lần lượt từ trái sang phải nên updated_at phải đứng trước quantity).
+     *
+     * @param userId    ID người dùng.
+     * @param productId ID sản phẩm.
+     * @param quantity  Số lượng mới.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (:userId, :productId, :quantity, NOW(6), NOW(6)) "
+            + "ON DUPLICATE KEY UPDATE updated_at = IF(quantity = :quantity, updated_at, NOW(6)), quantity = :quantity",
+            nativeQuery = true)
+    void upsertQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Cộng thêm số lượng cho một sản phẩm trong giỏ bằng một câu lệnh, không đọc trước (không mất lượt cộng khi gọi đồng thời).
+     *
+     * @param userId    ID người dùng.
+     * @param productId ID sản phẩm.
+     * @param quantity  Số lượng cộng thêm.
+     * @return 1 nếu thêm dòng mới, 2 nếu cộng vào dòng đã có (quy ước affected rows của MySQL).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (:userId, :productId, :quantity, NOW(6), NOW(6)) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity, updated_at = NOW(6)",
+            nativeQuery = true)
+    int upsertAddQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Đặt số lượng cho một sản phẩm đã có trong giỏ.
+     *
+     * @return Số dòng đã cập nhật (0 nếu sản phẩm chưa có trong giỏ).
+     */
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity, ci.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE ci.user.id = :userId AND ci.product.id = :productId")
+    int updateQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Xóa một sản phẩm khỏi giỏ của người dùng.
+     *
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id = :userId AND ci.product.id = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * Xóa nhiều sản phẩm khỏi giỏ bằng một câu lệnh.
+     *
+     * @param userId     ID người dùng.
+     * @param productIds Các sản phẩm cần xóa.
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id = :userId AND ci.product.id IN :productIds")
+    int deleteByUserIdAndProductIdIn(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Xóa các sản phẩm không còn trong giỏ của người dùng.
+     *
+     * @param userId     ID người dùng.
+     * @param productIds Các sản phẩm được giữ lại (không rỗng).
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id = :userId AND ci.product.id NOT IN :productIds")
+    int deleteByUserIdExcept(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Xóa toàn bộ giỏ của người dùng bằng một câu DELETE.
+     *
+     * @param userId ID người dùng.
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Projection (sản phẩm, số lượng) của một dòng cart_items.
+     */
+    interface CartLine {
+        Long getProductId();
+
+        Integer getQuantity();
+    }
+
+    /**
+     * Đọc giỏ của người dùng và khóa các dòng (FOR UPDATE, kèm khóa khoảng trên user_id) đến hết transaction,
+     * để không ai thêm/sửa giỏ giữa lúc đọc và lúc xóa. Phải gọi trong transaction.
+     *
+     * @param userId ID người dùng.
+     * @return Các dòng theo product_id tăng dần.
+     */
+    @Query(value = "SELECT product_id AS productId, quantity AS quantity FROM cart_items "
+            + "WHERE user_id = :userId ORDER BY product_id FOR UPDATE",
+            nativeQuery = true)
+    List<CartLine> lockLinesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Projection một dòng cart_items cho việc quét giỏ bỏ quên.
+     */
+    interface SweepCandidate {
+        Long getId();
+
+        Long getUserId();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    /**
+     * Đọc một đoạn dòng chưa sửa từ trước cutoff, keyset trên (updated_at, id) theo index idx_cart_items_updated_at_id.
+     *
+     * @param cutoff         Chỉ lấy dòng có updated_at trước thời điểm này.
+     * @param afterUpdatedAt updated_at của dòng cuối đoạn trước, null nếu là đoạn đầu.
+     * @param afterId        id của dòng cuối đoạn trước, null nếu là đoạn đầu.
+     * @param pageable       Chỉ dùng để giới hạn số dòng (LIMIT), luôn là trang 0.
+     * @return Các dòng theo (updated_at, id) tăng dần.
+     */
+    @Query("SELECT ci.id AS id, ci.user.id AS userId, ci.updatedAt AS updatedAt FROM CartItem ci "
+            + "WHERE ci.updatedAt < :cutoff "
+            + "AND (:afterId IS NULL OR ci.updatedAt > :afterUpdatedAt OR (ci.updatedAt = :afterUpdatedAt AND ci.id > :afterId)) "
+            + "ORDER BY ci.updatedAt ASC, ci.id ASC")
+    List<SweepCandidate> findSweepCandidates(@Param("cutoff") LocalDateTime cutoff,
+                                             @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * Trong các người dùng cho trước, lấy những người có cả giỏ không được sửa từ trước cutoff
+     * và khóa các dòng cart_items của họ (FOR UPDATE), để không ai thêm/sửa giỏ trước khi giỏ bị xóa.
+     * Phải gọi trong transaction.
      *
-     * @param user Người dùng sở hữu giỏ hàng.
-     * @return Danh sách các CartItem.
+     * @param userIds Các người dùng cần kiểm tra.
+     * @param cutoff  Mốc thời gian.
+     * @return ID người dùng có giỏ bỏ quên.
      */
-    List<CartItem> findByUser(User user);
+    @Query(value = "SELECT user_id FROM cart_items WHERE user_id IN (:userIds) "
+            + "GROUP BY user_id HAVING MAX(updated_at) < :cutoff FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockAbandonedUserIds(@Param("userIds") Collection<Long> userIds, @Param("cutoff") LocalDateTime cutoff);
 
     /**
-     * Xóa một mặt hàng cụ thể trong giỏ hàng của người dùng.
+     * Xóa toàn bộ giỏ của nhiều người dùng bằng một câu lệnh (theo tiền tố user_id của unique key).
      *
-     * @param user    Người dùng sở hữu giỏ hàng.
-     * @param product Sản phẩm cần xóa.
+     * @param userIds Các người dùng.
+     * @return Số dòng đã xóa.
      */
-    void deleteByUserAndProduct(User user, Product product);
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id IN :userIds")
+    int deleteAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
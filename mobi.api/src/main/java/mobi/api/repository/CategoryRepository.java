@@ -1,9 +1,13 @@
 package mobi.api.repository;
 
+import mobi.api.payload.response.CategoryResponse;
 import mobi.model.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,4 +22,23 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
 
     Boolean existsByName(String name);
+
+    /**
+     * Lấy một danh mục (chỉ id cha, không nạp proxy) trong một truy vấn.
+     *
+     * @param id ID danh mục.
+     * @return Optional chứa danh mục nếu tìm thấy.
+     */
+    @Query("SELECT new mobi.api.payload.response.CategoryResponse(c.id, c.name, c.description, p.id) "
+            + "FROM Category c LEFT JOIN c.parentCategory p WHERE c.id = :id")
+    Optional<CategoryResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Lấy toàn bộ danh mục dạng phẳng (chỉ id cha, không nạp proxy) trong một truy vấn để dựng cây.
+     *
+     * @return Danh sách danh mục theo id tăng dần.
+     */
+    @Query("SELECT new mobi.api.payload.response.CategoryResponse(c.id, c.name, c.description, p.id) "
+            + "FROM Category c LEFT JOIN c.parentCategory p ORDER BY c.id")
+    List<CategoryResponse> findAllResponses();
 }
@@ -1,18 +1,62 @@
 package mobi.api.repository;
 
 import mobi.model.entity.Order;
-import mobi.model.entity.auth.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // Một dòng phẳng = (đơn hàng, mặt hàng, sản phẩm); đơn hàng không có mặt hàng vẫn có một dòng với itemId null
+    String SELECT_ORDER_LINE = "SELECT o.id AS orderId, o.user.id AS userId, o.totalAmount AS totalAmount, "
+            + "o.createdAt AS createdAt, o.updatedAt AS updatedAt, oi.id AS itemId, p.id AS productId, "
+            + "p.name AS productName, oi.quantity AS quantity, oi.priceAtPurchase AS priceAtPurchase "
+            + "FROM Order o LEFT JOIN o.orderItems oi LEFT JOIN oi.product p ";
+
+    /**
+     * Lấy các đơn hàng của người dùng kèm mặt hàng dưới dạng dòng phẳng, trong một truy vấn.
+     *
+     * @param userId ID người dùng.
+     * @return Các dòng, đơn mới nhất trước, mặt hàng theo id tăng dần.
+     */
+    @Query(SELECT_ORDER_LINE + "WHERE o.user.id = :userId ORDER BY o.id DESC, oi.id ASC")
+    List<OrderLine> findLinesByUserId(@Param("userId") Long userId);
+
     /**
-     * Tìm kiếm tất cả các đơn hàng của một người dùng cụ thể.
+     * Lấy một đơn hàng kèm mặt hàng dưới dạng dòng phẳng, trong một truy vấn.
      *
-     * @param user Người dùng sở hữu đơn hàng.
-     * @return Danh sách các đơn hàng.
+     * @param orderId ID đơn hàng.
+     * @return Các dòng của đơn hàng, rỗng nếu không tồn tại.
      */
-    List<Order> findByUser(User user);
+    @Query(SELECT_ORDER_LINE + "WHERE o.id = :orderId ORDER BY oi.id ASC")
+    List<OrderLine> findLinesByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Projection cho một dòng của truy vấn join đơn hàng - mặt hàng - sản phẩm.
+     */
+    interface OrderLine {
+        Long getOrderId();
+
+        Long getUserId();
+
+        BigDecimal getTotalAmount();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getItemId();
+
+        Long getProductId();
+
+        String getProductName();
+
+        Integer getQuantity();
+
+        BigDecimal getPriceAtPurchase();
+    }
 }
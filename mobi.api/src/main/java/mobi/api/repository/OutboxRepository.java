@@ -0,0 +1,26 @@
+package mobi.api.repository;
+
+import mobi.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Interface Repository để tương tác với bảng outbox.
+ */
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Khóa và lấy lô sự kiện cũ nhất chưa gửi. SKIP LOCKED bỏ qua các dòng instance khác đang gửi,
+     * nên nhiều instance cùng chạy relay mà không chờ nhau và không gửi trùng.
+     * Phải gọi trong transaction; khóa được giữ tới khi transaction kết thúc.
+     *
+     * @param limit Số sự kiện tối đa.
+     * @return Danh sách sự kiện theo thứ tự ghi.
+     */
+    @Query(value = "SELECT * FROM outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -2,9 +2,34 @@ package mobi.api.repository;
 
 import mobi.model.entity.auth.PasswordResetToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
     Optional<PasswordResetToken> findByToken(String token);
+
+    /**
+     * Xóa token theo ID; trả về số dòng đã xóa (0 nếu request khác đã dùng token trước).
+     *
+     * @param id ID token.
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.id = :id")
+    int deleteByIdReturningCount(@Param("id") Long id);
+
+    /**
+     * Xóa một đoạn token hết hạn (theo index expiry_date), giới hạn số dòng để không giữ khóa lâu.
+     *
+     * @param now   Thời điểm hiện tại.
+     * @param limit Số dòng tối đa mỗi lần.
+     * @return Số dòng đã xóa.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_tokens WHERE expiry_date < :now ORDER BY expiry_date LIMIT :limit", nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") Date now, @Param("limit") int limit);
 }
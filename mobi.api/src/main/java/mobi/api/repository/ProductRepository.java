@@ -1,12 +1,158 @@
 package mobi.api.repository;
 
+import jakarta.persistence.QueryHint;
+import mobi.api.payload.response.ProductResponse;
 import mobi.model.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     // Spring Data JPA sẽ tự động cung cấp các phương thức như save(), findById(), findAll(), deleteById(), v.v.
     // Bạn có thể định nghĩa các phương thức tìm kiếm tùy chỉnh tại đây nếu cần, ví dụ:
     // List<Product> findByNameContainingIgnoreCase(String name);
+
+    // Phần SELECT chung: dựng thẳng ProductResponse, không nạp entity vào persistence context
+    String SELECT_PRODUCT_RESPONSE = "SELECT new mobi.api.payload.response.ProductResponse(p.id, p.name, p.price, p.description, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.category c ";
+
+    // Bộ lọc chung: danh mục và khoảng giá (tham số null = bỏ qua điều kiện)
+    String PRODUCT_FILTER = "WHERE (:categoryId IS NULL OR p.category.id = :categoryId) "
+            + "AND (:minPrice IS NULL OR p.price >= :minPrice) "
+            + "AND (:maxPrice IS NULL OR p.price <= :maxPrice) ";
+
+    /**
+     * Trang sản phẩm mới nhất trước (keyset trên id giảm dần).
+     *
+     * @param afterId  id cuối cùng của trang trước, null nếu là trang đầu.
+     * @param pageable Chỉ dùng để giới hạn số dòng (LIMIT), luôn là trang 0.
+     * @return Danh sách sản phẩm.
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + PRODUCT_FILTER
+            + "AND (:afterId IS NULL OR p.id < :afterId) "
+            + "ORDER BY p.id DESC")
+    List<ProductResponse> findPageNewest(@Param("categoryId") Long categoryId,
+                                         @Param("minPrice") BigDecimal minPrice,
+                                         @Param("maxPrice") BigDecimal maxPrice,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    /**
+     * Trang sản phẩm theo giá tăng dần (keyset trên (price, id)).
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + PRODUCT_FILTER
+            + "AND (:afterId IS NULL OR p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) "
+            + "ORDER BY p.price ASC, p.id ASC")
+    List<ProductResponse> findPagePriceAsc(@Param("categoryId") Long categoryId,
+                                           @Param("minPrice") BigDecimal minPrice,
+                                           @Param("maxPrice") BigDecimal maxPrice,
+                                           @Param("afterPrice") BigDecimal afterPrice,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    /**
+     * Trang sản phẩm theo giá giảm dần (keyset trên (price, id)).
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + PRODUCT_FILTER
+            + "AND (:afterId IS NULL OR p.price < :afterPrice OR (p.price = :afterPrice AND p.id < :afterId)) "
+            + "ORDER BY p.price DESC, p.id DESC")
+    List<ProductResponse> findPagePriceDesc(@Param("categoryId") Long categoryId,
+                                            @Param("minPrice") BigDecimal minPrice,
+                                            @Param("maxPrice") BigDecimal maxPrice,
+                                            @Param("afterPrice") BigDecimal afterPrice,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    /**
+     * Trang sản phẩm theo tên A-Z (keyset trên (name, id)).
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + PRODUCT_FILTER
+            + "AND (:afterId IS NULL OR p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) "
+            + "ORDER BY p.name ASC, p.id ASC")
+    List<ProductResponse> findPageNameAsc(@Param("categoryId") Long categoryId,
+                                          @Param("minPrice") BigDecimal minPrice,
+                                          @Param("maxPrice") BigDecimal maxPrice,
+                                          @Param("afterName") String afterName,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * Trang sản phẩm mới nhất trong một tập danh mục (ví dụ: một cây con), keyset trên id giảm dần.
+     *
+     * @param categoryIds Danh sách id danh mục.
+     * @param afterId     id cuối cùng của trang trước, null nếu là trang đầu.
+     * @param pageable    Chỉ dùng để giới hạn số dòng (LIMIT), luôn là trang 0.
+     * @return Danh sách sản phẩm.
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.category.id IN :categoryIds "
+            + "AND (:afterId IS NULL OR p.id < :afterId) "
+            + "ORDER BY p.id DESC")
+    List<ProductResponse> findPageNewestInCategories(@Param("categoryIds") Collection<Long> categoryIds,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    /**
+     * Lấy một ProductResponse theo id (kèm tên danh mục) trong một truy vấn.
+     *
+     * @param id ID sản phẩm.
+     * @return Optional chứa sản phẩm nếu tìm thấy.
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.id = :id")
+    Optional<ProductResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Lấy các ProductResponse theo danh sách id trong một truy vấn (thứ tự không đảm bảo).
+     *
+     * @param ids Danh sách id sản phẩm.
+     * @return Danh sách sản phẩm tìm thấy.
+     */
+    @Query(SELECT_PRODUCT_RESPONSE + "WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Projection (id, giá) để chốt giá khi đặt hàng.
+     */
+    interface ProductPrice {
+        Long getId();
+
+        BigDecimal getPrice();
+    }
+
+    /**
+     * Lấy giá hiện tại của nhiều sản phẩm trong một truy vấn, không nạp entity.
+     *
+     * @param ids Danh sách id sản phẩm.
+     * @return Giá của các sản phẩm tìm thấy (thứ tự không đảm bảo).
+     */
+    @Query("SELECT p.id AS id, p.price AS price FROM Product p WHERE p.id IN :ids")
+    List<ProductPrice> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Đọc toàn bộ catalog (kèm tên danh mục) dưới dạng stream chỉ-tiến.
+     * Fetch size Integer.MIN_VALUE bật chế độ streaming từng dòng của MySQL Connector/J,
+     * nên heap không phụ thuộc vào số lượng sản phẩm. Phải gọi trong transaction và đóng stream sau khi dùng.
+     *
+     * @return Stream các ProductResponse theo thứ tự id tăng dần.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_PRODUCT_RESPONSE + "ORDER BY p.id ASC")
+    Stream<ProductResponse> streamAllForExport();
 }
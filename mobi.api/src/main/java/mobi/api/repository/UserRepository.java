@@ -3,8 +3,11 @@ package mobi.api.repository;
 
 import mobi.model.entity.auth.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,4 +22,104 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Lấy phiên bản token của người dùng (chỉ một cột, không nạp entity).
+     *
+     * @param id ID người dùng.
+     * @return Phiên bản token, null nếu không tồn tại.
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Long findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Khóa dòng users của người dùng (SELECT ... FOR UPDATE) tới hết transaction hiện tại.
+     *
+     * @param id ID người dùng.
+     * @return ID nếu người dùng tồn tại, null nếu không.
+     */
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    /**
+     * Một dòng của danh sách người dùng cho trang quản trị (không có mật khẩu).
+     * roles là tên các vai trò nối bằng dấu phẩy, null nếu người dùng chưa có vai trò.
+     */
+    interface UserSummary {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        String getRoles();
+    }
+
+    /**
+     * Phần ngoài chung của hai truy vấn trang: chỉ join "limit" người dùng của bảng con p để gom tên vai trò.
+     */
+    String SUMMARY_SELECT = "SELECT p.id AS id, p.username AS username, p.email AS email, "
+            + "GROUP_CONCAT(r.name ORDER BY r.name SEPARATOR ',') AS roles FROM (";
+    String SUMMARY_ROLES = ") p "
+            + "LEFT JOIN user_roles ur ON ur.user_id = p.id "
+            + "LEFT JOIN roles r ON r.id = ur.role_id "
+            + "GROUP BY p.id, p.username, p.email "
+            + "ORDER BY p.username";
+    String SUMMARY_FILTERS = "(:afterUsername IS NULL OR u.username > :afterUsername) "
+            + "AND (:usernamePrefix IS NULL OR u.username LIKE CONCAT(:usernamePrefix, '%')) "
+            + "AND (:emailDomain IS NULL OR u.email_domain = :emailDomain) ";
+
+    /**
+     * Một trang người dùng theo keyset trên username (cột unique có index), có lọc theo tiền tố username
+     * và tên miền email. Lọc tên miền là so sánh bằng trên cột sinh email_domain, đi theo index
+     * (email_domain, username). Bảng con chỉ lấy đúng "limit" người dùng rồi mới join để gom vai trò,
+     * nên chi phí mỗi trang không phụ thuộc tổng số người dùng. Không đọc cột password.
+     *
+     * @param usernamePrefix Tiền tố username đã escape ký tự LIKE, null nếu không lọc.
+     * @param emailDomain    Tên miền email, null nếu không lọc.
+     * @param afterUsername  username cuối cùng của trang trước, null nếu là trang đầu.
+     * @param limit          Số dòng tối đa.
+     * @return Danh sách người dùng theo username tăng dần.
+     */
+    @Query(value = SUMMARY_SELECT
+            + "SELECT u.id, u.username, u.email FROM users u "
+            + "WHERE " + SUMMARY_FILTERS
+            + "ORDER BY u.username LIMIT :limit"
+            + SUMMARY_ROLES, nativeQuery = true)
+    List<UserSummary> findSummaryPage(@Param("usernamePrefix") String usernamePrefix,
+                                      @Param("emailDomain") String emailDomain,
+                                      @Param("afterUsername") String afterUsername,
+                                      @Param("limit") int limit);
+
+    /**
+     * Như {@link #findSummaryPage} nhưng chỉ lấy người dùng có vai trò role. Truy vấn đi từ user_roles
+     * theo index (role_id, user_id) rồi join users theo khóa chính, thay vì duyệt users và kiểm tra EXISTS từng dòng.
+     *
+     * @param role           Tên vai trò (ví dụ ROLE_ADMIN).
+     * @param usernamePrefix Tiền tố username đã escape ký tự LIKE, null nếu không lọc.
+     * @param emailDomain    Tên miền email, null nếu không lọc.
+     * @param afterUsername  username cuối cùng của trang trước, null nếu là trang đầu.
+     * @param limit          Số dòng tối đa.
+     * @return Danh sách người dùng theo username tăng dần.
+     */
+    @Query(value = SUMMARY_SELECT
+            + "SELECT u.id, u.username, u.email FROM user_roles fur JOIN users u ON u.id = fur.user_id "
+            + "WHERE fur.role_id = (SELECT fr.id FROM roles fr WHERE fr.name = :role) "
+            + "AND " + SUMMARY_FILTERS
+            + "ORDER BY u.username LIMIT :limit"
+            + SUMMARY_ROLES, nativeQuery = true)
+    List<UserSummary> findSummaryPageByRole(@Param("role") String role,
+                                            @Param("usernamePrefix") String usernamePrefix,
+                                            @Param("emailDomain") String emailDomain,
+                                            @Param("afterUsername") String afterUsername,
+                                            @Param("limit") int limit);
+
+    /**
+     * Lấy người dùng kèm vai trò trong một truy vấn (join fetch).
+     *
+     * @param id ID người dùng.
+     * @return Optional chứa người dùng nếu tìm thấy.
+     */
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id = :id")
+    Optional<User> findWithRolesById(@Param("id") Long id);
 }
@@ -1,9 +1,15 @@
 package mobi.api.security.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import mobi.api.security.jwt.AuthEntryPointJwt;
 import mobi.api.security.jwt.AuthTokenFilter;
+import mobi.api.security.services.BoundedPasswordEncoder;
 import mobi.api.security.services.UserDetailsServiceImpl;
+import mobi.api.security.throttle.LoginThrottleFilter;
+import mobi.api.security.throttle.LoginThrottleProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,7 +19,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -21,6 +26,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -28,6 +34,7 @@ import java.util.List;
  */
 @Configuration
 @EnableMethodSecurity // Kích hoạt bảo mật dựa trên phương thức (@PreAuthorize, @PostAuthorize)
+@EnableConfigurationProperties(LoginThrottleProperties.class)
 public class WebSecurityConfig {
 
     @Autowired
@@ -36,16 +43,43 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Cost BCrypt cho hash mới; hash cũ có cost thấp hơn sẽ được băm lại khi đăng nhập thành công
+    @Value("${mobi.security.password.strength:10}")
+    private int passwordStrength;
+
+    // Số luồng băm mật khẩu, 0 = bằng số core
+    @Value("${mobi.security.password.threads:0}")
+    private int passwordThreads;
+
+    @Value("${mobi.security.password.queue-capacity:100}")
+    private int passwordQueueCapacity;
+
+    @Value("${mobi.security.password.max-wait:2s}")
+    private Duration passwordMaxWait;
+
+    @Value("${mobi.security.password.retry-after:1s}")
+    private Duration passwordRetryAfter;
+
     // Bean để tạo AuthTokenFilter
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
 
-    // Bean để mã hóa mật khẩu
+    // Bean để tạo LoginThrottleFilter (giới hạn tần suất đăng nhập theo IP và username)
+    @Bean
+    public LoginThrottleFilter loginThrottleFilter() {
+        return new LoginThrottleFilter();
+    }
+
+    // Bean để mã hóa mật khẩu (BCrypt trên pool riêng, giới hạn hàng đợi)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(passwordStrength, passwordThreads, passwordQueueCapacity,
+                passwordMaxWait, passwordRetryAfter, meterRegistry);
     }
 
     // Bean để cung cấp cơ chế xác thực dựa trên UserDetailsService và PasswordEncoder
@@ -55,6 +89,7 @@ public class WebSecurityConfig {
 
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService); // Băm lại mật khẩu khi cost thay đổi
 
         return authProvider;
     }
@@ -74,8 +109,11 @@ public class WebSecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Không sử dụng session (stateless)
                 .authorizeHttpRequests(auth ->
                         auth.requestMatchers("/api/auth/**").permitAll() // Cho phép truy cập API đăng ký/đăng nhập
+                                .requestMatchers("/error").permitAll() // Cho phép trả lỗi (ví dụ 503 khi quá tải) cho request chưa đăng nhập
                                 .requestMatchers("/api/test/**").permitAll() // Cho phép truy cập các API test
                                 .requestMatchers("/api/products/**").permitAll() // Tạm thời cho phép truy cập products (sẽ bảo vệ sau)
+                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll() // Health check cho load balancer
+                                .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics (cache, throttle, hash mật khẩu...) chỉ dành cho ADMIN
                                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll() // CẬP NHẬT LẦN NỮA: Cho phép tất cả các đường dẫn liên quan đến Swagger
                                 .anyRequest().authenticated() // Tất cả các yêu cầu khác đều cần xác thực
                 );
@@ -83,6 +121,7 @@ public class WebSecurityConfig {
         http.authenticationProvider(authenticationProvider()); // Đăng ký Authentication Provider
 
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class); // Thêm JWT filter trước UsernamePasswordAuthenticationFilter
+        http.addFilterBefore(loginThrottleFilter(), AuthTokenFilter.class); // Chặn đăng nhập dồn dập trước mọi xử lý khác
 
         return http.build();
     }
@@ -4,6 +4,8 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import mobi.api.security.services.TokenVersionService;
+import mobi.api.security.services.UserDetailsImpl;
 import mobi.api.security.services.UserDetailsServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,24 +24,35 @@ import java.io.IOException;
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
-    private JwtUtils jwtUtils;
+    private JwtVerifier jwtVerifier;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        System.out.println("AuthTokenFilter: Intercepting request for " + request.getRequestURI()); // Dòng log để debug
+        logger.debug("AuthTokenFilter: Intercepting request for {}", request.getRequestURI()); // Dòng log để debug
         try {
             // Logic chính để xử lý JWT đã được THÊM LẠI
             String jwt = parseJwt(request);  // Lấy JWT từ Header Authorization
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {// Xác thực jwt
-                String userName = jwtUtils.getUserNameFromJwtToken(jwt);// Lấy username từ JWT
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userName); // Tải thông tin người dùng
+            // Xác thực jwt đúng một lần (hoặc lấy từ cache), kết quả mang sẵn username
+            VerifiedToken verified = jwt != null ? jwtVerifier.verify(jwt) : null;
+            // Token đã bị thu hồi (đăng xuất) thì bỏ qua như token không hợp lệ
+            if (verified != null && tokenRevocationService.isRevoked(verified)) {
+                logger.debug("Revoked JWT {}", verified.getTokenId());
+                verified = null;
+            }
+            UserDetails userDetails = verified != null ? resolveUser(verified) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));  // Thiết lập ngữ cảnh bảo mật
 
@@ -52,6 +65,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response); // Chuyển yêu cầu đến bộ lọc tiếp theo
     }
 
+    /**
+     * Dựng principal từ claim của token; chỉ kiểm tra phiên bản token qua cache (không truy vấn DB).
+     * Token cũ chưa có claim uid vẫn được chấp nhận bằng cách tải người dùng từ DB như trước.
+     *
+     * @return UserDetails, hoặc null nếu token đã bị thu hồi.
+     */
+    private UserDetails resolveUser(VerifiedToken verified) {
+        if (!verified.hasPrincipalClaims()) {
+            return userDetailsService.loadUserByUsername(verified.getSubject()); // Tải thông tin người dùng
+        }
+        Long currentVersion = tokenVersionService.currentVersion(verified.getUserId());
+        if (currentVersion == null || currentVersion != verified.getTokenVersion()) {
+            logger.debug("Revoked JWT for user {}", verified.getUserId());
+            return null;
+        }
+        return UserDetailsImpl.fromToken(verified);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -1,31 +1,33 @@
 package mobi.api.security.jwt;
 
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.Jwts;
 import mobi.api.security.services.UserDetailsImpl;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Lớp tiện ích để tạo (generate) và xác thực (validate) JSON Web Tokens (JWT).
+ * Khóa ký và việc xác thực được ủy quyền cho JwtVerifier (khóa dựng một lần, kết quả xác thực được cache).
  */
 @Component
 public class JwtUtils {
-    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
-
-    @Value("${jwt.secret}") // Lấy giá trị từ application.properties
-    private String jwtSecret;
-
     @Value("${jwt.expiration}") // Lấy giá trị từ application.properties
     private int jwtExpirationMs;
 
+    private final JwtVerifier jwtVerifier;
+
+    @Autowired
+    public JwtUtils(JwtVerifier jwtVerifier) {
+        this.jwtVerifier = jwtVerifier;
+    }
+
     /**
      * Tạo JWT từ thông tin xác thực của người dùng.
      *
@@ -35,18 +37,22 @@ public class JwtUtils {
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        List<String> roles = userPrincipal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+
         return Jwts.builder()
-                .setSubject((userPrincipal.getUsername())) // Đặt chủ thể của token là username
-                .setIssuedAt(new Date()) // Thời gian tạo token
-                .setExpiration(new Date(new Date().getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256) // Ký token với thuật toán HS256 và secret key
+                .subject(userPrincipal.getUsername()) // Đặt chủ thể của token là username
+                .id(UUID.randomUUID().toString()) // jti: định danh riêng của token, dùng để thu hồi (đăng xuất)
+                // Các claim đủ để dựng principal mà không truy vấn DB; "ver" dùng để thu hồi token
+                .claim(JwtVerifier.CLAIM_USER_ID, userPrincipal.getId())
+                .claim(JwtVerifier.CLAIM_EMAIL, userPrincipal.getEmail())
+                .claim(JwtVerifier.CLAIM_ROLES, roles)
+                .claim(JwtVerifier.CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
+                .issuedAt(new Date()) // Thời gian tạo token
+                .expiration(new Date(new Date().getTime() + jwtExpirationMs))
+                .signWith(jwtVerifier.getKey(), Jwts.SIG.HS256) // Ký token với thuật toán HS256 và secret key
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
     /**
      * Lấy username từ JWT.
      *
@@ -54,7 +60,8 @@ public class JwtUtils {
      * @return Username.
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser().setSigningKey(key()).build().parseClaimsJws(token).getBody().getSubject();
+        VerifiedToken verified = jwtVerifier.verify(token);
+        return verified != null ? verified.getSubject() : null;
     }
 
     /**
@@ -64,20 +71,6 @@ public class JwtUtils {
      * @return true nếu token hợp lệ, ngược lại false.
      */
     public boolean validateJwtToken(String authToken) {
-        try {
-            // Sử dụng parserBuilder() thay cho parser()
-            Jwts.parser().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
-        }
-
-        return false;
+        return jwtVerifier.verify(authToken) != null;
     }
 }
@@ -0,0 +1,149 @@
+package mobi.api.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thành phần xác thực JWT cho từng request.
+ * Khóa HMAC và parser được dựng một lần; mỗi token chỉ được parse + kiểm tra chữ ký một lần,
+ * kết quả được giữ trong một LRU giới hạn theo hash SHA-256 của token và tự hết hạn đúng lúc token hết hạn.
+ */
+@Component
+public class JwtVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_EMAIL = "email";
+    static final String CLAIM_ROLES = "roles";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtVerifier(@Value("${jwt.secret}") String jwtSecret,
+                       @Value("${jwt.verified-cache-size:10000}") long cacheSize,
+                       @Value("${jwt.verified-cache-ttl:PT5M}") Duration cacheTtl) {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        long maxTtlNanos = cacheTtl.toNanos();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, VerifiedToken token, long currentTime) {
+                        // Hết hạn cùng lúc với token, nhưng không giữ lâu hơn cacheTtl
+                        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(token.getExpiresAtMillis() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(remainingNanos, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Khóa ký HMAC dùng chung (JwtUtils dùng để ký token mới).
+     */
+    SecretKey getKey() {
+        return key;
+    }
+
+    /**
+     * Xác thực token: trả kết quả từ cache nếu token vừa được xác thực gần đây, nếu không thì parse đúng một lần.
+     *
+     * @param token Chuỗi JWT.
+     * @return VerifiedToken nếu token hợp lệ và còn hạn, null nếu không.
+     */
+    public VerifiedToken verify(String token) {
+        String tokenHash = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached;
+        }
+
+        VerifiedToken verified = parse(token);
+        if (verified != null && !verified.isExpired(now)) {
+            verifiedTokens.put(tokenHash, verified);
+            return verified;
+        }
+        return null;
+    }
+
+    /**
+     * Xóa token khỏi cache (ví dụ khi người dùng đăng xuất).
+     *
+     * @param token Chuỗi JWT.
+     */
+    public void invalidate(String token) {
+        verifiedTokens.invalidate(hash(token));
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            Number userId = claims.get(CLAIM_USER_ID, Number.class);
+            Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+            List<?> roles = claims.get(CLAIM_ROLES, List.class);
+            return new VerifiedToken(claims.getSubject(), claims.getId(),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                    userId != null ? userId.longValue() : null,
+                    claims.get(CLAIM_EMAIL, String.class),
+                    roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                    tokenVersion != null ? tokenVersion.longValue() : 0L);
+        } catch (MalformedJwtException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token is expired: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
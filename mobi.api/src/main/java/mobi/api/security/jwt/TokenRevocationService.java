@@ -0,0 +1,224 @@
+package mobi.api.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import mobi.common.probabilistic.ExpiringBloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Thu hồi từng JWT theo claim "jti" (đăng xuất, token bị lộ) trước khi token hết hạn.
+ * Danh sách gốc là sorted set "mobi:jwt:revoked" trên Redis (jti -> thời điểm hết hạn của token).
+ * Mỗi instance giữ một ExpiringBloomFilter của các jti đã thu hồi: token chưa bị thu hồi (trường hợp thường gặp)
+ * chỉ tốn vài phép đọc bit, không gọi Redis; chỉ khi filter báo có mới xác nhận lại bằng ZSCORE.
+ * Filter được đồng bộ giữa các instance qua Redis pub/sub và tự loại jti khi token hết hạn.
+ * Pub/sub không đảm bảo giao nhận (mất kết nối là mất thông báo), nên mỗi lượt bảo trì còn đọc lại
+ * "mobi:jwt:revoked:log" (jti + hết hạn -> thời điểm thu hồi) từ lần đồng bộ trước để bù các thông báo bị lỡ.
+ */
+@Component
+public class TokenRevocationService implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String REVOKED_KEY = "mobi:jwt:revoked";
+    private static final String LOG_KEY = "mobi:jwt:revoked:log";
+    private static final String CHANNEL = "mobi:jwt:revoked";
+    private static final String SEPARATOR = "\n";
+    // Số ngăn thời gian của filter trong một vòng đời token
+    private static final int SLICES = 12;
+    // Đọc lùi thêm khi đối soát để bù lệch đồng hồ giữa các instance
+    private static final long RECONCILE_OVERLAP_MS = 60_000L;
+    // KEYS: revoked, log; ARGV: jti, thời điểm hết hạn, thời điểm thu hồi
+    private static final RedisScript<Long> REVOKE = new DefaultRedisScript<>(
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "redis.call('ZADD', KEYS[2], ARGV[3], ARGV[1] .. '\\n' .. ARGV[2]) "
+                    + "return 1", Long.class);
+
+    // Định danh của instance này, dùng để bỏ qua thông báo do chính mình phát ra
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExpiringBloomFilter revoked;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final JwtVerifier jwtVerifier;
+    private final Counter confirmedRevoked;
+    private final Counter falsePositives;
+    private final long jwtExpirationMs;
+    // Thời điểm (ms) của lần đọc danh sách thu hồi gần nhất; 0 là chưa từng đọc được
+    private volatile long lastSync;
+
+    @Autowired
+    public TokenRevocationService(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                  JwtVerifier jwtVerifier, MeterRegistry meterRegistry,
+                                  @Value("${jwt.expiration}") long jwtExpirationMs,
+                                  @Value("${jwt.revocation.expected-per-slice:10000}") long expectedPerSlice,
+                                  @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.jwtVerifier = jwtVerifier;
+        this.jwtExpirationMs = jwtExpirationMs;
+        long slice = Math.max(60_000L, jwtExpirationMs / SLICES);
+        this.revoked = new ExpiringBloomFilter(jwtExpirationMs, slice, expectedPerSlice, falsePositiveRate);
+        this.confirmedRevoked = confirmationCounter(meterRegistry, "revoked");
+        this.falsePositives = confirmationCounter(meterRegistry, "false-positive");
+    }
+
+    private static Counter confirmationCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mobi.jwt.revocation.confirmations")
+                .description("Số lần filter báo có và phải xác nhận lại trên Redis, theo kết quả")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đăng ký nhận thông báo và nạp các jti còn hạn từ Redis vào filter.
+     */
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, 0, now);
+            Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet().rangeByScoreWithScores(REVOKED_KEY, now, Double.MAX_VALUE);
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    revoked.put(entry.getValue(), entry.getScore().longValue(), now);
+                }
+                logger.info("Loaded {} revoked JWT ids", entries.size());
+            }
+            lastSync = now;
+        } catch (Exception e) {
+            logger.warn("Cannot load revoked JWT ids: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Thu hồi token: ghi vào Redis, thêm vào filter của instance này và báo các instance khác.
+     *
+     * @param token    Chuỗi JWT.
+     * @param verified Kết quả xác thực của token.
+     * @return false nếu token không có jti (token cũ) nên không thu hồi riêng được.
+     */
+    public boolean revoke(String token, VerifiedToken verified) {
+        String tokenId = verified.getTokenId();
+        if (tokenId == null) {
+            return false;
+        }
+        long expiresAt = verified.getExpiresAtMillis();
+        long now = System.currentTimeMillis();
+        redisTemplate.execute(REVOKE, List.of(REVOKED_KEY, LOG_KEY), tokenId, String.valueOf(expiresAt), String.valueOf(now));
+        revoked.put(tokenId, expiresAt, now);
+        jwtVerifier.invalidate(token);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + tokenId + SEPARATOR + expiresAt);
+        } catch (Exception e) {
+            // Instance khác sẽ chặn token ở lượt đối soát kế tiếp; trong lúc đó token còn dùng được ở đó
+            logger.warn("Cannot publish JWT revocation: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra token đã bị thu hồi chưa. Trường hợp thường gặp (không bị thu hồi) không gọi Redis.
+     *
+     * @param verified Kết quả xác thực của token.
+     * @return true nếu token đã bị thu hồi.
+     */
+    public boolean isRevoked(VerifiedToken verified) {
+        String tokenId = verified.getTokenId();
+        if (tokenId == null || !revoked.mightContain(tokenId)) {
+            return false;
+        }
+        try {
+            Double expiresAt = redisTemplate.opsForZSet().score(REVOKED_KEY, tokenId);
+            if (expiresAt != null) {
+                confirmedRevoked.increment();
+                return true;
+            }
+            falsePositives.increment();
+            return false;
+        } catch (Exception e) {
+            // Không xác nhận được: coi như đã thu hồi (filter đã báo có)
+            logger.warn("Cannot confirm JWT revocation: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Định kỳ xóa các ngăn đã hết hạn của filter và các jti hết hạn trên Redis,
+     * rồi đối soát filter với các jti được thu hồi từ lần đồng bộ trước.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.maintenance-interval:60000}")
+    public void maintain() {
+        long now = System.currentTimeMillis();
+        revoked.rotate(now);
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, 0, now);
+            // Mục thu hồi cũ hơn vòng đời token chỉ còn chứa token đã hết hạn
+            redisTemplate.opsForZSet().removeRangeByScore(LOG_KEY, 0, now - jwtExpirationMs);
+        } catch (Exception e) {
+            logger.warn("Cannot trim revoked JWT ids: {}", e.getMessage());
+        }
+        reconcile(now);
+    }
+
+    /**
+     * Thêm vào filter các jti được thu hồi từ lần đồng bộ trước (lùi thêm RECONCILE_OVERLAP_MS).
+     * Thêm lại jti đã có không làm thay đổi filter.
+     */
+    private void reconcile(long now) {
+        long since = lastSync > 0 ? lastSync - RECONCILE_OVERLAP_MS : 0;
+        try {
+            Set<String> entries = redisTemplate.opsForZSet().rangeByScore(LOG_KEY, since, Double.MAX_VALUE);
+            int added = 0;
+            if (entries != null) {
+                for (String entry : entries) {
+                    int separator = entry.lastIndexOf(SEPARATOR);
+                    if (separator <= 0) {
+                        continue;
+                    }
+                    long expiresAt = Long.parseLong(entry.substring(separator + 1));
+                    if (expiresAt > now) {
+                        revoked.put(entry.substring(0, separator), expiresAt, now);
+                        added++;
+                    }
+                }
+            }
+            lastSync = now;
+            logger.debug("Reconciled {} revoked JWT ids since {}", added, since);
+        } catch (Exception e) {
+            logger.warn("Cannot reconcile revoked JWT ids: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nhận thông báo "nodeId\njti\nexpiresAt" từ instance khác.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            revoked.put(parts[1], Long.parseLong(parts[2]), System.currentTimeMillis());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid JWT revocation message");
+        }
+    }
+}
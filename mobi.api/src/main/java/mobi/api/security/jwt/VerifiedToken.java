@@ -0,0 +1,84 @@
+package mobi.api.security.jwt;
+
+import java.util.List;
+
+/**
+ * Kết quả đã xác thực của một JWT: chữ ký hợp lệ và chưa hết hạn tại thời điểm xác thực.
+ * Mang sẵn các claim cần để dựng principal (uid, email, roles, ver) nên request không cần truy vấn DB.
+ * Bất biến, có thể dùng chung giữa các request thông qua cache của JwtVerifier.
+ */
+public final class VerifiedToken {
+    private final String subject;
+    // Claim "jti", dùng để thu hồi từng token; null với token cấp trước khi có claim này
+    private final String tokenId;
+    private final long expiresAtMillis;
+    // null với token cấp trước khi có các claim này
+    private final Long userId;
+    private final String email;
+    private final List<String> roles;
+    private final long tokenVersion;
+
+    public VerifiedToken(String subject, String tokenId, long expiresAtMillis, Long userId, String email, List<String> roles, long tokenVersion) {
+        this.subject = subject;
+        this.tokenId = tokenId;
+        this.expiresAtMillis = expiresAtMillis;
+        this.userId = userId;
+        this.email = email;
+        this.roles = roles != null ? List.copyOf(roles) : List.of();
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * @return Username (subject) của token.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return ID của token (claim "jti"), null nếu token không mang claim này.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return Thời điểm hết hạn (epoch millis).
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    /**
+     * @return ID người dùng (claim "uid"), null nếu token không mang claim này.
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * @return Phiên bản token của người dùng lúc cấp (claim "ver").
+     */
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * @return true nếu token mang đủ claim để dựng principal mà không cần DB.
+     */
+    public boolean hasPrincipalClaims() {
+        return userId != null;
+    }
+}
@@ -0,0 +1,17 @@
+package mobi.api.security.principal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu tham số Long của controller nhận ID người dùng đã xác thực (lấy từ JWT, không truy vấn DB).
+ * Cần entity thì dùng userRepository.getReferenceById(userId) trong transaction: chỉ là proxy, không SELECT.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUserId {
+}
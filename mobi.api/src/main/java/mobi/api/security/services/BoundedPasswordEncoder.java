@@ -0,0 +1,122 @@
+package mobi.api.security.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PasswordEncoder chạy BCrypt trên một pool riêng có số luồng bằng số core và hàng đợi giới hạn,
+ * để một đợt đăng nhập dồn dập không chiếm hết luồng Tomcat phục vụ các request khác.
+ * Khi hàng đợi đầy (hoặc chờ quá lâu) sẽ ném PasswordHashingBusyException (503 + Retry-After) ngay thay vì xếp hàng vô hạn.
+ * upgradeEncoding() báo hash cũ có cost thấp hơn cấu hình hiện tại, để DaoAuthenticationProvider băm lại khi đăng nhập thành công.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    /**
+     * @param strength      Cost (log2 số vòng) của BCrypt cho hash mới.
+     * @param threads       Số luồng băm, 0 nghĩa là bằng số core.
+     * @param queueCapacity Số yêu cầu băm tối đa được xếp hàng.
+     * @param maxWait       Thời gian tối đa một request chờ kết quả băm.
+     * @param retryAfter    Giá trị Retry-After trả về khi quá tải.
+     * @param meterRegistry Nơi đăng ký metrics.
+     */
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration maxWait, Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // AbortPolicy: hàng đợi đầy thì từ chối ngay
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"));
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("mobi.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Số yêu cầu băm mật khẩu đang chờ trong hàng đợi")
+                .register(meterRegistry);
+        Gauge.builder("mobi.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Số luồng đang băm mật khẩu")
+                .register(meterRegistry);
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+        this.rejected = Counter.builder("mobi.password.hash.rejected")
+                .description("Số yêu cầu băm mật khẩu bị từ chối do quá tải")
+                .register(meterRegistry);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("mobi.password.hash")
+                .description("Thời gian băm/kiểm tra mật khẩu (không tính thời gian chờ trong hàng đợi)")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Chỉ đọc tiền tố "$2a$10$" của hash, không cần chạy trên pool
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfter);
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfter);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package mobi.api.security.services;
+
+import mobi.api.repository.PasswordResetTokenRepository;
+import mobi.api.repository.UserRepository;
+import mobi.model.entity.auth.PasswordResetToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Lưu token khôi phục mật khẩu trong bảng password_reset_tokens (dùng khi không có Redis).
+ * Token hết hạn được dọn định kỳ theo từng đoạn nhỏ, mỗi đoạn một transaction ngắn.
+ */
+@Component
+@ConditionalOnProperty(name = "mobi.security.password-reset.store", havingValue = "jpa")
+public class JpaPasswordResetTokenStore implements PasswordResetTokenStore {
+    private static final Logger logger = LoggerFactory.getLogger(JpaPasswordResetTokenStore.class);
+
+    private final SecureRandom random = new SecureRandom();
+    private final PasswordResetTokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int purgeChunkSize;
+
+    @Autowired
+    public JpaPasswordResetTokenStore(PasswordResetTokenRepository tokenRepository, UserRepository userRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${mobi.security.password-reset.ttl:24h}") Duration ttl,
+                                      @Value("${mobi.security.password-reset.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.purgeChunkSize = purgeChunkSize;
+    }
+
+    @Override
+    @Transactional
+    public String issue(Long userId) {
+        String token = PasswordResetTokenStore.newToken(random);
+        tokenRepository.save(new PasswordResetToken(userRepository.getReferenceById(userId),
+                PasswordResetTokenStore.hash(token), new Date(System.currentTimeMillis() + ttl.toMillis())));
+        return token;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Long> consume(String token) {
+        Optional<PasswordResetToken> stored = tokenRepository.findByToken(PasswordResetTokenStore.hash(token));
+        if (stored.isEmpty() || stored.get().isExpired()) {
+            return Optional.empty();
+        }
+        // Chỉ request xóa được dòng mới được dùng token (chống dùng lại khi hai request đến cùng lúc)
+        if (tokenRepository.deleteByIdReturningCount(stored.get().getId()) == 0) {
+            return Optional.empty();
+        }
+        // getId() trên proxy LAZY không nạp User
+        return Optional.of(stored.get().getUser().getId());
+    }
+
+    /**
+     * Dọn token hết hạn theo từng đoạn purgeChunkSize dòng cho tới khi hết.
+     */
+    @Scheduled(fixedDelayString = "${mobi.security.password-reset.purge-interval:3600000}")
+    public void purgeExpired() {
+        Date now = new Date();
+        long total = 0;
+        int deleted;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> tokenRepository.deleteExpiredChunk(now, purgeChunkSize));
+            deleted = chunk != null ? chunk : 0;
+            total += deleted;
+        } while (deleted == purgeChunkSize);
+        if (total > 0) {
+            logger.info("Purged {} expired password reset tokens", total);
+        }
+    }
+}
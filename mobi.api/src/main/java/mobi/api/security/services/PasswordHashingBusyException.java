@@ -0,0 +1,27 @@
+package mobi.api.security.services;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Ném ra khi pool băm mật khẩu đã đầy: trả 503 kèm header Retry-After để client thử lại sau.
+ */
+public class PasswordHashingBusyException extends ResponseStatusException {
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter) {
+        super(SERVICE_UNAVAILABLE, "Password hashing is busy, please retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
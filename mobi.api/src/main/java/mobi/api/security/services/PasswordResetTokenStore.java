@@ -0,0 +1,53 @@
+package mobi.api.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Nơi lưu token khôi phục mật khẩu. Chỉ lưu hash SHA-256 của token; token gốc chỉ nằm trong email gửi người dùng.
+ * Mỗi token chỉ dùng được một lần và tự hết hạn.
+ * Mặc định dùng Redis (RedisPasswordResetTokenStore); đặt mobi.security.password-reset.store=jpa để dùng MySQL.
+ */
+public interface PasswordResetTokenStore {
+
+    /**
+     * Tạo token mới cho người dùng.
+     *
+     * @param userId ID người dùng.
+     * @return Token gốc để đưa vào liên kết khôi phục.
+     */
+    String issue(Long userId);
+
+    /**
+     * Kiểm tra và hủy token trong một thao tác nguyên tử.
+     *
+     * @param token Token gốc từ liên kết khôi phục.
+     * @return ID người dùng nếu token hợp lệ và chưa dùng, rỗng nếu không.
+     */
+    Optional<Long> consume(String token);
+
+    /**
+     * Sinh token ngẫu nhiên 256 bit dạng Base64 URL-safe.
+     */
+    static String newToken(SecureRandom random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Hash SHA-256 (Base64 URL-safe) của token, dùng làm khóa lưu trữ.
+     */
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
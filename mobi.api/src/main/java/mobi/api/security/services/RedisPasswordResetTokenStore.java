@@ -0,0 +1,45 @@
+package mobi.api.security.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Lưu token khôi phục mật khẩu trong Redis: "mobi:pwreset:{hash}" -> userId, hết hạn bằng TTL của Redis.
+ * Dùng token bằng GETDEL nên kiểm tra + hủy là một lệnh nguyên tử, một round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "mobi.security.password-reset.store", havingValue = "redis", matchIfMissing = true)
+public class RedisPasswordResetTokenStore implements PasswordResetTokenStore {
+    private static final String KEY_PREFIX = "mobi:pwreset:";
+
+    private final SecureRandom random = new SecureRandom();
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    @Autowired
+    public RedisPasswordResetTokenStore(StringRedisTemplate redisTemplate,
+                                        @Value("${mobi.security.password-reset.ttl:24h}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String issue(Long userId) {
+        String token = PasswordResetTokenStore.newToken(random);
+        redisTemplate.opsForValue().set(KEY_PREFIX + PasswordResetTokenStore.hash(token), String.valueOf(userId), ttl);
+        return token;
+    }
+
+    @Override
+    public Optional<Long> consume(String token) {
+        String userId = redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + PasswordResetTokenStore.hash(token));
+        return userId != null ? Optional.of(Long.valueOf(userId)) : Optional.empty();
+    }
+}
@@ -0,0 +1,66 @@
+package mobi.api.security.services;
+
+import mobi.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Phiên bản token hiện tại của từng người dùng, phục vụ việc thu hồi JWT.
+ * Được cache trong "tokenVersions" (L1 Caffeine + L2 Redis), nên mỗi request chỉ đọc bộ nhớ;
+ * khi phiên bản tăng, cache được xóa trên mọi instance qua pub/sub của TwoLevelCacheManager.
+ */
+@Service
+public class TokenVersionService {
+    private static final String CACHE_NAME = "tokenVersions";
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public TokenVersionService(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Lấy phiên bản token hiện tại của người dùng.
+     *
+     * @param userId ID người dùng.
+     * @return Phiên bản hiện tại, null nếu người dùng không còn tồn tại.
+     */
+    @Cacheable(value = CACHE_NAME, key = "#userId", sync = true)
+    public Long currentVersion(Long userId) {
+        return userRepository.findTokenVersionById(userId);
+    }
+
+    /**
+     * Xóa phiên bản đã cache sau khi transaction hiện tại commit (ngay lập tức nếu không có transaction).
+     * Xóa trước khi commit thì một request mang JWT cũ có thể đọc lại phiên bản cũ từ DB và cache lại nó.
+     *
+     * @param userId ID người dùng.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictNow(userId);
+            }
+        });
+    }
+
+    private void evictNow(Long userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(userId);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package mobi.api.security.services;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import mobi.api.security.jwt.VerifiedToken;
 import mobi.model.entity.auth.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -28,6 +29,9 @@ public class UserDetailsImpl implements UserDetails {
 
     private Collection<? extends GrantedAuthority> authorities;
 
+    @JsonIgnore
+    private long tokenVersion;
+
     public UserDetailsImpl(Long id, String username, String email, String password, Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
         this.username = username;
@@ -36,6 +40,11 @@ public class UserDetailsImpl implements UserDetails {
         this.authorities = authorities;
     }
 
+    public UserDetailsImpl(Long id, String username, String email, String password, Collection<? extends GrantedAuthority> authorities, long tokenVersion) {
+        this(id, username, email, password, authorities);
+        this.tokenVersion = tokenVersion;
+    }
+
     /**
      * Xây dựng đối tượng UserDetailsImpl từ User entity.
      *
@@ -44,7 +53,18 @@ public class UserDetailsImpl implements UserDetails {
      */
     public static UserDetailsImpl build(User user) {
         List<GrantedAuthority> authorities = user.getRoles().stream().map(role -> new SimpleGrantedAuthority(role.getName().name())).collect(Collectors.toList());
-        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), authorities);
+        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), authorities, user.getTokenVersion());
+    }
+
+    /**
+     * Xây dựng UserDetailsImpl trực tiếp từ claim của JWT đã xác thực (không có mật khẩu, không truy vấn DB).
+     *
+     * @param token Token đã xác thực, mang uid/email/roles/ver.
+     * @return UserDetailsImpl.
+     */
+    public static UserDetailsImpl fromToken(VerifiedToken token) {
+        List<GrantedAuthority> authorities = token.getRoles().stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+        return new UserDetailsImpl(token.getUserId(), token.getSubject(), token.getEmail(), null, authorities, token.getTokenVersion());
     }
 
     @Override
@@ -60,6 +80,10 @@ public class UserDetailsImpl implements UserDetails {
         return email;
     }
 
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
     @Override
     public String getPassword() {
         return password;
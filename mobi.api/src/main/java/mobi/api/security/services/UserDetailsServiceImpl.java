@@ -5,15 +5,17 @@ import mobi.api.repository.UserRepository;
 import mobi.model.entity.auth.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 /**
  * Lớp triển khai UserDetailsService, tải thông tin người dùng từ cơ sở dữ liệu.
+ * Đồng thời là UserDetailsPasswordService: lưu hash mới khi DaoAuthenticationProvider băm lại mật khẩu lúc đăng nhập.
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     UserRepository userRepository;
 
@@ -25,4 +27,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Lưu hash mới (cùng mật khẩu, cost mới) sau khi đăng nhập thành công.
+     * Không tăng phiên bản token vì mật khẩu không đổi.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        return UserDetailsImpl.build(userRepository.save(user));
+    }
 }
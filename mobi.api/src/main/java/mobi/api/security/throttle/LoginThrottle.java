@@ -0,0 +1,155 @@
+package mobi.api.security.throttle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Giới hạn đăng nhập theo IP (mọi lần gọi) và theo username (lần đăng nhập sai), giữ hoàn toàn trong bộ nhớ.
+ * Từ chối một lần thử chỉ tốn vài phép CAS, không truy vấn DB và không băm BCrypt.
+ * Khi bật redisSync, instance phát hiện IP/username vượt ngưỡng sẽ báo các instance khác để chúng chặn luôn.
+ */
+@Component
+public class LoginThrottle implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+    private static final String IP = "ip";
+    private static final String USERNAME = "user";
+    private static final String SEPARATOR = "\n";
+
+    // Định danh của instance này, dùng để bỏ qua thông báo do chính mình phát ra
+    private final String nodeId = UUID.randomUUID().toString();
+    private final LoginThrottleProperties properties;
+    private final SlidingWindowCounter ipCounter;
+    private final SlidingWindowCounter usernameCounter;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Counter ipRejected;
+    private final Counter usernameRejected;
+
+    @Autowired
+    public LoginThrottle(LoginThrottleProperties properties, StringRedisTemplate redisTemplate,
+                         RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ipCounter = new SlidingWindowCounter(properties.getCapacity(), properties.getIpWindow().toMillis());
+        this.usernameCounter = new SlidingWindowCounter(properties.getCapacity(), properties.getUsernameWindow().toMillis());
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.ipRejected = rejectedCounter(meterRegistry, IP);
+        this.usernameRejected = rejectedCounter(meterRegistry, USERNAME);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String dimension) {
+        return Counter.builder("mobi.login.throttle.rejected")
+                .description("Số lần đăng nhập bị chặn bởi giới hạn tần suất")
+                .tag("dimension", dimension)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (properties.isEnabled() && properties.isRedisSync()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        }
+    }
+
+    /**
+     * Ghi nhận một lần gọi đăng nhập từ IP.
+     *
+     * @return false nếu IP đã vượt ngưỡng và lần gọi này phải bị từ chối.
+     */
+    public boolean tryAcquire(String ip) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        long count = ipCounter.increment(ip, System.currentTimeMillis());
+        if (count <= properties.getIpLimit()) {
+            return true;
+        }
+        if (count == properties.getIpLimit() + 1) {
+            publish(IP, ip);
+        }
+        ipRejected.increment();
+        return false;
+    }
+
+    /**
+     * @return true nếu username đã đăng nhập sai quá ngưỡng và lần thử này phải bị từ chối.
+     */
+    public boolean isBlocked(String username) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if (usernameCounter.estimate(normalize(username), System.currentTimeMillis()) < properties.getUsernameLimit()) {
+            return false;
+        }
+        usernameRejected.increment();
+        return true;
+    }
+
+    /**
+     * Ghi nhận một lần đăng nhập sai của username.
+     */
+    public void recordFailure(String username) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String key = normalize(username);
+        if (usernameCounter.increment(key, System.currentTimeMillis()) == properties.getUsernameLimit()) {
+            publish(USERNAME, key);
+        }
+    }
+
+    /**
+     * Thời gian client nên chờ trước khi thử lại khi bị chặn theo IP hoặc username.
+     */
+    public Duration retryAfter(boolean byUsername) {
+        return byUsername ? properties.getUsernameWindow() : properties.getIpWindow();
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void publish(String dimension, String key) {
+        if (!properties.isRedisSync()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), nodeId + SEPARATOR + dimension + SEPARATOR + key);
+        } catch (Exception e) {
+            // Instance khác vẫn tự chặn khi chính nó thấy đủ số lần thử
+            logger.warn("Cannot publish login throttle: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nhận thông báo "nodeId\nip|user\nkey" từ instance khác: đẩy bộ đếm của khóa lên ngưỡng.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (IP.equals(parts[1])) {
+            ipCounter.saturate(parts[2], now, properties.getIpLimit() + 1);
+        } else if (USERNAME.equals(parts[1])) {
+            usernameCounter.saturate(parts[2], now, properties.getUsernameLimit());
+        }
+    }
+}
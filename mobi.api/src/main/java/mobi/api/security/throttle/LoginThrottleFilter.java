@@ -0,0 +1,155 @@
+package mobi.api.security.throttle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bộ lọc đứng trước AuthController cho POST /api/auth/signin.
+ * Kiểm tra giới hạn theo IP trước khi đọc body, rồi theo username (đọc từ body JSON, body được giữ lại để controller đọc tiếp);
+ * lần thử bị chặn trả 429 + Retry-After mà không chạm tới DB hay BCrypt. Đăng nhập sai (401) được ghi nhận cho username.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    private static final String SIGNIN_PATH = "/api/auth/signin";
+    // Body đăng nhập chỉ gồm username và mật khẩu; lớn hơn mức này là bất thường
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !("POST".equals(request.getMethod()) && SIGNIN_PATH.equals(request.getServletPath()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // Dùng địa chỉ kết nối; sau proxy cần cấu hình server.forward-headers-strategy để lấy IP thật
+        if (!loginThrottle.tryAcquire(request.getRemoteAddr())) {
+            reject(request, response, loginThrottle.retryAfter(false));
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        String username = extractUsername(body);
+        if (username != null && loginThrottle.isBlocked(username)) {
+            reject(request, response, loginThrottle.retryAfter(true));
+            return;
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+
+        if (username != null && response.getStatus() == HttpServletResponse.SC_UNAUTHORIZED) {
+            loginThrottle.recordFailure(username);
+        }
+    }
+
+    private static String extractUsername(byte[] body) {
+        try {
+            JsonNode userName = MAPPER.readTree(body).get("userName");
+            return userName != null && userName.isTextual() && !userName.asText().isBlank() ? userName.asText() : null;
+        } catch (IOException | RuntimeException e) {
+            // Body lỗi: để controller trả 400 như bình thường
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletRequest request, HttpServletResponse response, Duration retryAfter) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Too many login attempts, please retry later");
+        body.put("path", request.getServletPath());
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Request trả lại body đã đọc cho các bộ lọc/controller phía sau.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
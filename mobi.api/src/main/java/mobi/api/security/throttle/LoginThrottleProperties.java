@@ -0,0 +1,93 @@
+package mobi.api.security.throttle;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình giới hạn đăng nhập, đọc từ tiền tố "mobi.security.login-throttle".
+ */
+@ConfigurationProperties(prefix = "mobi.security.login-throttle")
+public class LoginThrottleProperties {
+    private boolean enabled = true;
+
+    // Số lần gọi /api/auth/signin tối đa của một IP trong ipWindow
+    private int ipLimit = 30;
+    private Duration ipWindow = Duration.ofMinutes(1);
+
+    // Số lần đăng nhập sai tối đa của một username trong usernameWindow
+    private int usernameLimit = 10;
+    private Duration usernameWindow = Duration.ofMinutes(15);
+
+    // Số ô của mỗi bảng đếm (IP, username); khóa ít dùng nhất bị ghi đè khi đầy
+    private int capacity = 65_536;
+
+    // Báo các instance khác qua Redis pub/sub khi một IP/username vượt ngưỡng
+    private boolean redisSync = false;
+    private String channel = "mobi:login:throttle";
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getIpLimit() {
+        return ipLimit;
+    }
+
+    public void setIpLimit(int ipLimit) {
+        this.ipLimit = ipLimit;
+    }
+
+    public Duration getIpWindow() {
+        return ipWindow;
+    }
+
+    public void setIpWindow(Duration ipWindow) {
+        this.ipWindow = ipWindow;
+    }
+
+    public int getUsernameLimit() {
+        return usernameLimit;
+    }
+
+    public void setUsernameLimit(int usernameLimit) {
+        this.usernameLimit = usernameLimit;
+    }
+
+    public Duration getUsernameWindow() {
+        return usernameWindow;
+    }
+
+    public void setUsernameWindow(Duration usernameWindow) {
+        this.usernameWindow = usernameWindow;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean isRedisSync() {
+        return redisSync;
+    }
+
+    public void setRedisSync(boolean redisSync) {
+        this.redisSync = redisSync;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+}
@@ -0,0 +1,159 @@
+package mobi.api.security.throttle;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bộ đếm cửa sổ trượt xấp xỉ theo khóa, không khóa (lock-free), kích thước cố định.
+ * Mỗi khóa chiếm một ô long trong AtomicLongArray, đóng gói [fingerprint 16 bit][cửa sổ 16 bit][đếm cửa sổ trước 16 bit][đếm cửa sổ hiện tại 16 bit]
+ * và được cập nhật bằng một CAS. Ước lượng = đếm trước * phần cửa sổ trước còn nằm trong cửa sổ trượt + đếm hiện tại.
+ * Khóa được dò trong PROBES ô liền kề; khi hết chỗ, ô có số đếm còn hiệu lực nhỏ nhất bị ghi đè (loại bỏ xấp xỉ).
+ */
+final class SlidingWindowCounter {
+    private static final int PROBES = 4;
+    private static final long MASK_16 = 0xFFFFL;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long windowMillis;
+
+    /**
+     * @param capacity     Số ô tối thiểu (làm tròn lên lũy thừa của 2).
+     * @param windowMillis Độ dài cửa sổ (ms).
+     */
+    SlidingWindowCounter(int capacity, long windowMillis) {
+        int size = Integer.highestOneBit(Math.max(capacity, PROBES) - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Tăng bộ đếm của khóa thêm 1.
+     *
+     * @return Số lần ước lượng trong cửa sổ trượt, đã tính lần này.
+     */
+    long increment(String key, long now) {
+        return update(key, now, 1, 0);
+    }
+
+    /**
+     * Đẩy bộ đếm của khóa lên ít nhất value (dùng khi instance khác báo khóa đã vượt ngưỡng).
+     */
+    void saturate(String key, long now, int value) {
+        update(key, now, 0, value);
+    }
+
+    /**
+     * Số lần ước lượng trong cửa sổ trượt, không thay đổi bộ đếm.
+     */
+    long estimate(String key, long now) {
+        long hash = hash(key);
+        long fingerprint = fingerprint(hash);
+        long window = window(now);
+        int base = (int) hash & mask;
+        for (int probe = 0; probe < PROBES; probe++) {
+            long state = slots.get((base + probe) & mask);
+            if (fingerprintOf(state) == fingerprint) {
+                return estimate(roll(state, window), now);
+            }
+        }
+        return 0;
+    }
+
+    private long update(String key, long now, int delta, int atLeast) {
+        long hash = hash(key);
+        long fingerprint = fingerprint(hash);
+        long window = window(now);
+        int base = (int) hash & mask;
+
+        while (true) {
+            int victim = -1;
+            long victimState = 0;
+            long victimCount = Long.MAX_VALUE;
+            boolean contended = false;
+            for (int probe = 0; probe < PROBES && !contended; probe++) {
+                int index = (base + probe) & mask;
+                long state = slots.get(index);
+                if (fingerprintOf(state) == fingerprint) {
+                    long rolled = roll(state, window);
+                    long current = Math.min(MASK_16, Math.max(currentOf(rolled) + delta, atLeast));
+                    long next = (rolled & ~MASK_16) | current;
+                    if (slots.compareAndSet(index, state, next)) {
+                        return estimate(next, now);
+                    }
+                    contended = true;
+                    continue;
+                }
+                // Ô trống hoặc của khóa khác: ứng viên để ghi đè nếu số đếm còn hiệu lực nhỏ nhất
+                long live = state == 0 ? 0 : liveCount(roll(state, window));
+                if (live < victimCount) {
+                    victim = index;
+                    victimState = state;
+                    victimCount = live;
+                }
+            }
+            if (contended) {
+                continue;
+            }
+            long next = (fingerprint << 48) | (window << 32) | Math.min(MASK_16, Math.max(delta, atLeast));
+            if (slots.compareAndSet(victim, victimState, next)) {
+                return estimate(next, now);
+            }
+        }
+    }
+
+    /**
+     * Đưa trạng thái về cửa sổ hiện tại: cùng cửa sổ thì giữ nguyên, cửa sổ liền trước thì dời đếm sang "trước", cũ hơn thì xóa.
+     */
+    private static long roll(long state, long window) {
+        long stateWindow = (state >>> 32) & MASK_16;
+        long fingerprint = state & (MASK_16 << 48);
+        if (stateWindow == window) {
+            return state;
+        }
+        long previous = ((window - stateWindow) & MASK_16) == 1 ? currentOf(state) : 0;
+        return fingerprint | (window << 32) | (previous << 16);
+    }
+
+    private long estimate(long state, long now) {
+        double remaining = 1.0 - (double) (now % windowMillis) / windowMillis;
+        return (long) (((state >>> 16) & MASK_16) * remaining) + currentOf(state);
+    }
+
+    private static long liveCount(long state) {
+        return ((state >>> 16) & MASK_16) + currentOf(state);
+    }
+
+    private static long currentOf(long state) {
+        return state & MASK_16;
+    }
+
+    private static long fingerprintOf(long state) {
+        return (state >>> 48) & MASK_16;
+    }
+
+    private long window(long now) {
+        return (now / windowMillis) & MASK_16;
+    }
+
+    private static long fingerprint(long hash) {
+        long fingerprint = (hash >>> 48) & MASK_16;
+        // 0 dành cho ô trống
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    /**
+     * Băm 64 bit (FNV-1a + trộn bit) để chỉ số ô và fingerprint lấy từ các bit độc lập.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,163 @@
+package mobi.api.service;
+
+import mobi.api.cart.CartChanges;
+import mobi.api.cart.CartStore;
+import mobi.api.payload.response.CartItemResponse;
+import mobi.api.payload.response.CartResponse;
+import mobi.api.payload.response.ProductResponse;
+import mobi.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * Lớp Service cho giỏ hàng: ghi qua CartStore và dựng giỏ đã tính giá (CartResponse).
+ * Tên, danh mục và giá sản phẩm lấy bằng một truy vấn (products LEFT JOIN categories ... WHERE id IN);
+ * thành tiền, tổng số lượng và tổng tiền tính ở server.
+ * Giỏ đã tính giá được cache trong "carts" theo userId và bị xóa (hoặc ghi đè) ở mỗi thao tác sửa giỏ;
+ * thay đổi giá sản phẩm không xóa cache này nên TTL của "carts" được để ngắn.
+ */
+@Service
+public class CartService {
+    private final CartStore cartStore;
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public CartService(CartStore cartStore, ProductService productService, ProductRepository productRepository) {
+        this.cartStore = cartStore;
+        this.productService = productService;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Lấy giỏ hàng đã tính giá của người dùng.
+     *
+     * @param userId ID người dùng.
+     * @return Giỏ hàng theo thứ tự ID sản phẩm, bỏ qua sản phẩm đã bị xóa.
+     */
+    @Cacheable(value = "carts", key = "#userId", sync = true)
+    public CartResponse getCart(Long userId) {
+        Map<Long, Integer> items = cartStore.getItems(userId);
+        return toResponse(items, findProducts(items.keySet()));
+    }
+
+    /**
+     * Lấy và xóa giỏ hàng trong một thao tác nguyên tử (dùng khi đặt hàng). Phải gọi trong transaction;
+     * rollback thì giỏ được trả lại. Gọi evict(userId) sau khi transaction kết thúc.
+     *
+     * @return Giỏ vừa lấy (productId -> số lượng), rỗng nếu giỏ trống.
+     */
+    public Map<Long, Integer> take(Long userId) {
+        return cartStore.take(userId);
+    }
+
+    /**
+     * Thêm một sản phẩm vào giỏ hoặc cộng thêm số lượng nếu đã có.
+     *
+     * @return true nếu sản phẩm mới được thêm vào giỏ.
+     */
+    @CacheEvict(value = "carts", key = "#userId")
+    public boolean addItem(Long userId, Long productId, int quantity) {
+        if (productService.getProductById(productId).isEmpty()) {
+            throw new ResponseStatusException(NOT_FOUND, "Product not found");
+        }
+        return cartStore.add(userId, productId, quantity);
+    }
+
+    /**
+     * Đặt số lượng cho một sản phẩm đã có trong giỏ.
+     *
+     * @return false nếu sản phẩm chưa có trong giỏ.
+     */
+    @CacheEvict(value = "carts", key = "#userId")
+    public boolean updateItem(Long userId, Long productId, int quantity) {
+        return cartStore.update(userId, productId, quantity);
+    }
+
+    @CacheEvict(value = "carts", key = "#userId")
+    public boolean removeItem(Long userId, Long productId) {
+        return cartStore.remove(userId, productId);
+    }
+
+    @CacheEvict(value = "carts", key = "#userId")
+    public void clear(Long userId) {
+        cartStore.clear(userId);
+    }
+
+    /**
+     * Xóa giỏ đã tính giá khỏi cache "carts" (ví dụ sau khi giỏ bị lấy đi lúc đặt hàng).
+     */
+    @CacheEvict(value = "carts", key = "#userId")
+    public void evict(Long userId) {
+    }
+
+    /**
+     * Áp dụng một lô thay đổi lên giỏ và trả về giỏ mới đã tính giá (đồng thời ghi vào cache "carts").
+     * Sản phẩm của giỏ hiện tại và của lô được tra bằng một truy vấn IN; sản phẩm không tồn tại trả về 404
+     * trước khi ghi bất cứ thay đổi nào.
+     *
+     * @param userId  ID người dùng.
+     * @param changes Các thay đổi đã gộp theo sản phẩm.
+     * @return Giỏ hàng sau khi áp dụng.
+     */
+    @CachePut(value = "carts", key = "#userId")
+    public CartResponse apply(Long userId, CartChanges changes) {
+        Set<Long> productIds = new HashSet<>(cartStore.getItems(userId).keySet());
+        productIds.addAll(changes.getAdditions().keySet());
+        productIds.addAll(changes.getQuantities().keySet());
+        Map<Long, ProductResponse> products = findProducts(productIds);
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)
+                    && (changes.getAdditions().containsKey(productId) || changes.getQuantities().containsKey(productId))) {
+                throw new ResponseStatusException(NOT_FOUND, "Product not found: " + productId);
+            }
+        }
+
+        Map<Long, Integer> items = cartStore.apply(userId, changes);
+        // Sản phẩm do request khác thêm vào giỏ trong lúc này chưa được tra ở trên
+        Set<Long> unresolved = new HashSet<>(items.keySet());
+        unresolved.removeAll(productIds);
+        if (!unresolved.isEmpty()) {
+            products.putAll(findProducts(unresolved));
+        }
+        return toResponse(items, products);
+    }
+
+    private Map<Long, ProductResponse> findProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return productRepository.findResponsesByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+    }
+
+    /**
+     * Ghép giỏ hàng với thông tin sản phẩm, theo thứ tự của giỏ; bỏ qua sản phẩm đã bị xóa.
+     */
+    private static CartResponse toResponse(Map<Long, Integer> items, Map<Long, ProductResponse> products) {
+        List<CartItemResponse> lines = new ArrayList<>(items.size());
+        items.forEach((productId, quantity) -> {
+            ProductResponse product = products.get(productId);
+            if (product != null) {
+                lines.add(new CartItemResponse(productId, product.getName(), product.getCategoryName(), product.getPrice(), quantity));
+            }
+        });
+        return new CartResponse(lines);
+    }
+}
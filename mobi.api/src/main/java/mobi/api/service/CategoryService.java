@@ -1,6 +1,7 @@
 package mobi.api.service;
 
 
+import mobi.api.payload.response.CategoryResponse;
 import mobi.api.repository.CategoryRepository;
 import mobi.model.entity.Category;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,10 +19,12 @@ import java.util.Optional;
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, CategoryTreeService categoryTreeService) {
         this.categoryRepository = categoryRepository;
+        this.categoryTreeService = categoryTreeService;
     }
 
     /**
@@ -29,9 +32,9 @@ public class CategoryService {
      *
      * @return Danh sách tất cả danh mục.
      */
-    @Cacheable(value = "categories")
-    public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+    @Cacheable(value = "categories", sync = true)
+    public List<CategoryResponse> getAllCategories() {
+        return categoryRepository.findAllResponses();
     }
 
     /**
@@ -40,9 +43,9 @@ public class CategoryService {
      * @param id ID của danh mục.
      * @return Optional chứa danh mục nếu tìm thấy.
      */
-    @Cacheable(value = "categoryById", key = "#id")
-    public Optional<Category> getCategoryById(Long id) {
-        return categoryRepository.findById(id);
+    @Cacheable(value = "categoryById", key = "#id", sync = true)
+    public Optional<CategoryResponse> getCategoryById(Long id) {
+        return categoryRepository.findResponseById(id);
     }
 
     /**
@@ -53,10 +56,12 @@ public class CategoryService {
      */
     @Caching(evict = {
             @CacheEvict(value = "categories", allEntries = true),
-            @CacheEvict(value = "category", key = "category.id", condition = "category.id != null")
+            @CacheEvict(value = "categoryByName", key = "#category.name")
     })
-    public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+    public CategoryResponse createCategory(Category category) {
+        Category savedCategory = categoryRepository.save(category);
+        categoryTreeService.rebuildAndPublish();
+        return toResponse(savedCategory);
     }
 
     /**
@@ -68,14 +73,18 @@ public class CategoryService {
      */
     @Caching(evict = {
             @CacheEvict(value = "categories", allEntries = true),
-            @CacheEvict(value = "category", key = "#id")
+            @CacheEvict(value = "categoryById", key = "#id"),
+            @CacheEvict(value = "categoryByName", allEntries = true),
+            @CacheEvict(value = "productPages", allEntries = true)
     })
-    public Optional<Category> updateCategory(Long id, Category categoryDetails) {
+    public Optional<CategoryResponse> updateCategory(Long id, Category categoryDetails) {
         return categoryRepository.findById(id).map(existingCategory -> {
             existingCategory.setName(categoryDetails.getName());
             existingCategory.setDescription(categoryDetails.getDescription());
             existingCategory.setParentCategory(categoryDetails.getParentCategory());
-            return categoryRepository.save(existingCategory);
+            Category savedCategory = categoryRepository.save(existingCategory);
+            categoryTreeService.rebuildAndPublish();
+            return toResponse(savedCategory);
         });
     }
 
@@ -86,10 +95,13 @@ public class CategoryService {
      */
     @Caching(evict = {
             @CacheEvict(value = "categories", allEntries = true),
-            @CacheEvict(value = "category", key = "#id")
+            @CacheEvict(value = "categoryById", key = "#id"),
+            @CacheEvict(value = "categoryByName", allEntries = true),
+            @CacheEvict(value = "productPages", allEntries = true)
     })
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        categoryTreeService.rebuildAndPublish();
     }
 
     /**
@@ -98,8 +110,17 @@ public class CategoryService {
      * @param name Tên danh mục.
      * @return true nếu tồn tại, ngược lại false.
      */
-    @Cacheable(value = "categoryByName", key = "name")
+    @Cacheable(value = "categoryByName", key = "#name", sync = true)
     public Boolean existsByName(String name) {
         return categoryRepository.existsByName(name);
     }
+
+    /**
+     * Chuyển entity vừa lưu sang CategoryResponse; chỉ đọc id của danh mục cha nên không khởi tạo proxy LAZY.
+     */
+    private static CategoryResponse toResponse(Category category) {
+        Category parent = category.getParentCategory();
+        return new CategoryResponse(category.getId(), category.getName(), category.getDescription(),
+                parent != null ? parent.getId() : null);
+    }
 }
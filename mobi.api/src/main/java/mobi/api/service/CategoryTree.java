@@ -0,0 +1,217 @@
+package mobi.api.service;
+
+import mobi.api.payload.response.CategoryResponse;
+import mobi.api.payload.response.CategoryTreeResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ảnh chụp bất biến của cây danh mục, dựng một lần từ danh sách phẳng.
+ * Các nút được đánh số theo thứ tự duyệt tiền thứ tự (pre-order), nên tập con cháu của một nút
+ * là một đoạn liên tiếp [enter, exit) trong mảng preorder (giống nested set): tra cứu O(1), không truy vấn DB.
+ * Đường dẫn tổ tiên của mỗi nút được tính sẵn khi dựng.
+ */
+public final class CategoryTree {
+    static final CategoryTree EMPTY = new CategoryTree(List.of());
+
+    private final Map<Long, Integer> indexById;
+    private final CategoryResponse[] nodes;
+    private final int[][] children;
+    private final int[] enter;
+    private final int[] exit;
+    private final List<Long> preorder;
+    private final List<CategoryResponse>[] paths;
+    private final List<Integer> roots;
+
+    @SuppressWarnings("unchecked")
+    CategoryTree(List<CategoryResponse> categories) {
+        int n = categories.size();
+        nodes = categories.toArray(new CategoryResponse[0]);
+        indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexById.put(nodes[i].getId(), i);
+        }
+
+        List<List<Integer>> childLists = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            childLists.add(new ArrayList<>());
+        }
+        List<Integer> rootList = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Integer parent = nodes[i].getParentId() != null ? indexById.get(nodes[i].getParentId()) : null;
+            if (parent == null || parent == i) {
+                rootList.add(i);
+            } else {
+                childLists.get(parent).add(i);
+            }
+        }
+        children = new int[n][];
+        for (int i = 0; i < n; i++) {
+            children[i] = childLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        enter = new int[n];
+        exit = new int[n];
+        Arrays.fill(enter, -1);
+        paths = new List[n];
+        long[] order = new long[n];
+        int[] counter = {0};
+        VisitStack stack = new VisitStack(n);
+        for (int root : rootList) {
+            visit(root, stack, order, counter);
+        }
+        // Dữ liệu lỗi có vòng (A là cha B, B là cha A) sẽ không tới được từ gốc nào: coi nút đầu tiên của vòng là gốc
+        for (int i = 0; i < n; i++) {
+            if (enter[i] < 0) {
+                rootList.add(i);
+                visit(i, stack, order, counter);
+            }
+        }
+        preorder = Collections.unmodifiableList(Arrays.stream(order).boxed().toList());
+        roots = List.copyOf(rootList);
+    }
+
+    /**
+     * Duyệt tiền thứ tự bằng stack tường minh để cây sâu không gây tràn stack.
+     */
+    private void visit(int root, VisitStack stack, long[] order, int[] counter) {
+        stack.push(root, 0);
+        enter[root] = counter[0];
+        order[counter[0]++] = nodes[root].getId();
+        paths[root] = List.of(nodes[root]);
+        while (!stack.isEmpty()) {
+            int node = stack.peekNode();
+            int next = stack.peekChild();
+            if (next < children[node].length) {
+                stack.advance();
+                int child = children[node][next];
+                if (enter[child] >= 0) {
+                    continue;
+                }
+                enter[child] = counter[0];
+                order[counter[0]++] = nodes[child].getId();
+                paths[child] = append(paths[node], nodes[child]);
+                stack.push(child, 0);
+            } else {
+                exit[node] = counter[0];
+                stack.pop();
+            }
+        }
+    }
+
+    private static List<CategoryResponse> append(List<CategoryResponse> path, CategoryResponse node) {
+        List<CategoryResponse> result = new ArrayList<>(path.size() + 1);
+        result.addAll(path);
+        result.add(node);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return true nếu danh mục có trong ảnh chụp.
+     */
+    public boolean contains(Long id) {
+        return indexById.containsKey(id);
+    }
+
+    /**
+     * @return Số danh mục trong cây.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Id của danh mục và toàn bộ con cháu (theo thứ tự tiền thứ tự), rỗng nếu không tồn tại.
+     */
+    public List<Long> descendantIds(Long id) {
+        Integer index = indexById.get(id);
+        if (index == null) {
+            return List.of();
+        }
+        return preorder.subList(enter[index], exit[index]);
+    }
+
+    /**
+     * Đường dẫn từ gốc tới danh mục (bao gồm chính nó), rỗng nếu không tồn tại.
+     */
+    public List<CategoryResponse> ancestorPath(Long id) {
+        Integer index = indexById.get(id);
+        return index != null ? paths[index] : List.of();
+    }
+
+    /**
+     * Cây con bắt đầu từ danh mục, hoặc null nếu không tồn tại.
+     */
+    public CategoryTreeResponse subtree(Long id) {
+        Integer index = indexById.get(id);
+        return index != null ? toResponse(index) : null;
+    }
+
+    /**
+     * Toàn bộ cây, bắt đầu từ các danh mục gốc.
+     */
+    public List<CategoryTreeResponse> roots() {
+        List<CategoryTreeResponse> result = new ArrayList<>(roots.size());
+        for (int root : roots) {
+            result.add(toResponse(root));
+        }
+        return result;
+    }
+
+    private CategoryTreeResponse toResponse(int index) {
+        CategoryResponse node = nodes[index];
+        List<CategoryTreeResponse> childResponses = new ArrayList<>(children[index].length);
+        for (int child : children[index]) {
+            // Bỏ qua cạnh quay lại tổ tiên (chỉ xảy ra với dữ liệu có vòng)
+            if (enter[child] > enter[index] && enter[child] < exit[index]) {
+                childResponses.add(toResponse(child));
+            }
+        }
+        return new CategoryTreeResponse(node.getId(), node.getName(), node.getDescription(), node.getParentId(), childResponses);
+    }
+
+    /**
+     * Stack (nút, chỉ số con kế tiếp) dùng mảng nguyên thủy.
+     */
+    private static final class VisitStack {
+        private final int[] nodeStack;
+        private final int[] childStack;
+        private int size;
+
+        private VisitStack(int capacity) {
+            nodeStack = new int[Math.max(capacity, 1)];
+            childStack = new int[Math.max(capacity, 1)];
+        }
+
+        private void push(int node, int child) {
+            nodeStack[size] = node;
+            childStack[size] = child;
+            size++;
+        }
+
+        private int peekNode() {
+            return nodeStack[size - 1];
+        }
+
+        private int peekChild() {
+            return childStack[size - 1];
+        }
+
+        private void advance() {
+            childStack[size - 1]++;
+        }
+
+        private void pop() {
+            size--;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
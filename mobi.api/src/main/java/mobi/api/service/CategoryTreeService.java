@@ -0,0 +1,92 @@
+package mobi.api.service;
+
+import jakarta.annotation.PostConstruct;
+import mobi.api.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lớp Service giữ ảnh chụp cây danh mục (CategoryTree) trong bộ nhớ.
+ * Ảnh chụp được dựng lại toàn bộ bằng một truy vấn và thay thế nguyên tử mỗi khi danh mục thay đổi;
+ * các instance khác được báo dựng lại qua Redis pub/sub. Người đọc không bao giờ thấy cây dựng dở.
+ */
+@Service
+public class CategoryTreeService implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeService.class);
+    private static final String CHANNEL = "mobi:category:tree";
+
+    // Định danh của instance này, dùng để bỏ qua thông báo do chính mình phát ra
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicReference<CategoryTree> snapshot = new AtomicReference<>(CategoryTree.EMPTY);
+    private final CategoryRepository categoryRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    public CategoryTreeService(CategoryRepository categoryRepository, StringRedisTemplate redisTemplate,
+                               RedisMessageListenerContainer listenerContainer) {
+        this.categoryRepository = categoryRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Ảnh chụp hiện tại (bất biến, an toàn khi đọc từ nhiều luồng).
+     *
+     * @return Cây danh mục.
+     */
+    public CategoryTree getTree() {
+        return snapshot.get();
+    }
+
+    /**
+     * Dựng lại cây từ DB và thay thế ảnh chụp hiện tại.
+     * Đồng bộ hóa để hai lần dựng chồng nhau không ghi đè ảnh chụp mới bằng ảnh chụp cũ.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        CategoryTree tree = new CategoryTree(categoryRepository.findAllResponses());
+        snapshot.set(tree);
+        logger.info("Category tree rebuilt: {} categories in {} ms", tree.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Dựng lại cây trên instance này và báo các instance khác dựng lại.
+     * Gọi sau khi thay đổi danh mục đã được lưu.
+     */
+    public void rebuildAndPublish() {
+        rebuild();
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId);
+        } catch (Exception e) {
+            // Instance khác sẽ có cây cũ cho tới lần khởi động/thay đổi kế tiếp
+            logger.warn("Cannot publish category tree rebuild: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (!nodeId.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            rebuild();
+        }
+    }
+}
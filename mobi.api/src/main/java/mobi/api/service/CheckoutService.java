@@ -0,0 +1,143 @@
+package mobi.api.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mobi.api.kafka.OrderPlacedEvent;
+import mobi.api.repository.ProductRepository;
+import mobi.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lớp Service đặt hàng từ giỏ hàng với số câu lệnh SQL không phụ thuộc số mặt hàng, trong một transaction ngắn:
+ * khóa dòng users của người dùng (các lần đặt hàng của cùng người dùng chạy lần lượt), lấy và xóa giỏ
+ * bằng một thao tác nguyên tử của CartStore (kèm một câu DELETE trên cart_items), một truy vấn IN chốt giá,
+ * một INSERT đơn hàng, một JDBC batch cho order_items (rewriteBatchedStatements gộp thành một INSERT nhiều dòng)
+ * và một dòng outbox. Bấm đặt hàng hai lần thì lần sau nhận giỏ trống; sản phẩm thêm vào giỏ trong lúc đặt hàng
+ * nằm lại trong giỏ mới; transaction rollback thì giỏ được trả lại.
+ */
+@Service
+public class CheckoutService {
+    private static final String INSERT_ORDER = "INSERT INTO orders (user_id, total_amount, created_at, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ORDER_ITEM = "INSERT INTO order_items (order_id, product_id, quantity, price_at_purchase) VALUES (?, ?, ?, ?)";
+
+    private final CartService cartService;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer checkoutTimer;
+    private final DistributionSummary checkoutLines;
+
+    @Autowired
+    public CheckoutService(CartService cartService, ProductRepository productRepository, UserRepository userRepository,
+                           OutboxService outboxService, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.cartService = cartService;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkoutTimer = Timer.builder("mobi.checkout")
+                .description("Thời gian đặt một đơn hàng từ giỏ hàng")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.checkoutLines = DistributionSummary.builder("mobi.checkout.lines")
+                .description("Số mặt hàng mỗi đơn hàng")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đặt hàng toàn bộ giỏ của người dùng theo giá hiện tại; sản phẩm đã bị xóa được bỏ qua.
+     *
+     * @param userId ID người dùng.
+     * @return Sự kiện của đơn hàng vừa đặt, rỗng nếu giỏ trống (hoặc đã được đặt bởi một request khác).
+     */
+    public Optional<OrderPlacedEvent> placeOrder(Long userId) {
+        return checkoutTimer.record(() -> {
+            try {
+                return Optional.ofNullable(transactionTemplate.execute(status -> {
+                    if (userRepository.lockById(userId) == null) {
+                        return null; // Người dùng đã bị xóa
+                    }
+                    OrderPlacedEvent placed = insertOrder(userId, cartService.take(userId));
+                    if (placed == null) {
+                        status.setRollbackOnly(); // Không có gì để đặt: trả lại giỏ như cũ
+                    }
+                    return placed;
+                }));
+            } finally {
+                cartService.evict(userId);
+            }
+        });
+    }
+
+    /**
+     * Chốt giá và ghi đơn hàng cùng các mặt hàng; phải gọi trong transaction.
+     *
+     * @return Sự kiện của đơn hàng, null nếu không còn mặt hàng nào đặt được.
+     */
+    private OrderPlacedEvent insertOrder(Long userId, Map<Long, Integer> cartItems) {
+        if (cartItems.isEmpty()) {
+            return null;
+        }
+
+        // Chốt giá bằng một truy vấn IN, giữ thứ tự của giỏ
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        productRepository.findPricesByIdIn(cartItems.keySet()).forEach(price -> prices.put(price.getId(), price.getPrice()));
+        List<Object[]> lines = new ArrayList<>(cartItems.size());
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> cartItem : cartItems.entrySet()) {
+            BigDecimal price = prices.get(cartItem.getKey());
+            if (price == null) {
+                continue; // Sản phẩm đã bị xóa
+            }
+            totalAmount = totalAmount.add(price.multiply(BigDecimal.valueOf(cartItem.getValue())));
+            lines.add(new Object[]{null, cartItem.getKey(), cartItem.getValue(), price});
+        }
+        if (lines.isEmpty()) {
+            return null;
+        }
+
+        BigDecimal total = totalAmount;
+        Timestamp now = Timestamp.from(Instant.now());
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setBigDecimal(2, total);
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+            return ps;
+        }, key);
+        Long orderId = key.getKeyAs(Number.class).longValue();
+
+        lines.forEach(line -> line[0] = orderId);
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, lines);
+        checkoutLines.record(lines.size());
+
+        OrderPlacedEvent placed = new OrderPlacedEvent(orderId, userId, total, lines.size());
+        // Ghi sự kiện vào outbox trong cùng transaction với đơn hàng
+        outboxService.record(OrderPlacedEvent.TOPIC, orderId, placed);
+        return placed;
+    }
+}
@@ -0,0 +1,75 @@
+package mobi.api.service;
+
+import mobi.api.payload.response.OrderItemResponse;
+import mobi.api.payload.response.OrderResponse;
+import mobi.api.repository.OrderRepository;
+import mobi.api.repository.OrderRepository.OrderLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * Lớp Service cho luồng đọc đơn hàng: mỗi request chỉ chạy một truy vấn join phẳng
+ * rồi gom thành OrderResponse, không nạp entity nên không chạm tới proxy LAZY.
+ */
+@Service
+public class OrderService {
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public OrderService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Lấy tất cả các đơn hàng của một người dùng.
+     *
+     * @param userId ID người dùng.
+     * @return Danh sách đơn hàng, mới nhất trước.
+     */
+    public List<OrderResponse> getOrdersForUser(Long userId) {
+        return group(orderRepository.findLinesByUserId(userId));
+    }
+
+    /**
+     * Lấy chi tiết một đơn hàng, chỉ khi đơn thuộc về người dùng.
+     *
+     * @param orderId ID đơn hàng.
+     * @param userId  ID người dùng hiện tại.
+     * @return Chi tiết đơn hàng.
+     */
+    public OrderResponse getOrderForUser(Long orderId, Long userId) {
+        List<OrderLine> lines = orderRepository.findLinesByOrderId(orderId);
+        if (lines.isEmpty()) {
+            throw new ResponseStatusException(NOT_FOUND, "Order not found with id " + orderId);
+        }
+        if (!lines.get(0).getUserId().equals(userId)) {
+            throw new ResponseStatusException(FORBIDDEN, "You do not have permission to view this order.");
+        }
+        return group(lines).get(0);
+    }
+
+    /**
+     * Gom các dòng phẳng (đã sắp theo đơn hàng) thành danh sách OrderResponse, giữ nguyên thứ tự.
+     */
+    private static List<OrderResponse> group(List<OrderLine> lines) {
+        Map<Long, OrderResponse> orders = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            OrderResponse order = orders.computeIfAbsent(line.getOrderId(), id -> new OrderResponse(
+                    id, line.getTotalAmount(), line.getCreatedAt(), line.getUpdatedAt(), new ArrayList<>()));
+            if (line.getItemId() != null) {
+                order.getOrderItems().add(new OrderItemResponse(line.getItemId(), line.getProductId(),
+                        line.getProductName(), line.getQuantity(), line.getPriceAtPurchase()));
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+}
@@ -0,0 +1,74 @@
+package mobi.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mobi.api.repository.OutboxRepository;
+import mobi.model.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lớp Service ghi sự kiện miền vào bảng outbox trong cùng transaction với thay đổi dữ liệu,
+ * nên sự kiện được gửi khi và chỉ khi thay đổi được commit. OutboxRelay gửi chúng lên Kafka sau đó.
+ */
+@Service
+public class OutboxService {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OutboxService(OutboxRepository outboxRepository, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ghi một sự kiện vào outbox. Bắt buộc có transaction đang chạy (ném lỗi nếu gọi ngoài transaction).
+     *
+     * @param topic   Topic Kafka đích.
+     * @param key     Key của message (ID của aggregate).
+     * @param payload Đối tượng sự kiện, được lưu dạng JSON.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String topic, Object key, Object payload) {
+        outboxRepository.save(new OutboxEvent(topic, key != null ? String.valueOf(key) : null, payload.getClass().getName(), toJson(payload)));
+    }
+
+    /**
+     * Ghi nhiều sự kiện cùng topic bằng một JDBC batch (bảng outbox dùng IDENTITY nên Hibernate không gom lô được).
+     * Bắt buộc có transaction đang chạy.
+     *
+     * @param topic    Topic Kafka đích.
+     * @param payloads Các đối tượng sự kiện.
+     * @param keyOf    Hàm lấy key của message từ sự kiện.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void recordAll(String topic, List<T> payloads, Function<T, Object> keyOf) {
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (T payload : payloads) {
+            Object key = keyOf.apply(payload);
+            rows.add(new Object[]{topic, key != null ? String.valueOf(key) : null, payload.getClass().getName(), toJson(payload), createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO outbox (topic, message_key, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox event " + payload.getClass().getName(), e);
+        }
+    }
+}
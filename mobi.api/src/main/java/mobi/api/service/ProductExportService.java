@@ -0,0 +1,63 @@
+package mobi.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import mobi.api.payload.response.ProductResponse;
+import mobi.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Lớp Service xuất toàn bộ catalog sản phẩm dưới dạng NDJSON (mỗi dòng một JSON).
+ * Dữ liệu được đọc bằng stream chỉ-tiến và ghi thẳng ra OutputStream,
+ * nên bộ nhớ sử dụng không đổi dù catalog có 10 nghìn hay 10 triệu sản phẩm.
+ */
+@Service
+public class ProductExportService {
+    // Số dòng giữa hai lần flush để client nhận dữ liệu đều đặn
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProductExportService(ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ghi toàn bộ sản phẩm ra output dưới dạng NDJSON.
+     * Transaction chỉ-đọc giữ kết nối trong suốt quá trình stream; dòng đầu tiên được flush ngay.
+     *
+     * @param out Output stream của response (có thể đã được bọc GZIP).
+     * @return Số sản phẩm đã ghi.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<ProductResponse> products = productRepository.streamAllForExport();
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            Iterator<ProductResponse> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+                if (count == 1 || count % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+            if (count > 0) {
+                // Dòng cuối cũng kết thúc bằng ký tự xuống dòng theo chuẩn NDJSON
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        return count;
+    }
+}
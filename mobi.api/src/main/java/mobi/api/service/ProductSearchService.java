@@ -0,0 +1,184 @@
+package mobi.api.service;
+
+import jakarta.annotation.PostConstruct;
+import mobi.api.payload.response.ProductResponse;
+import mobi.api.repository.ProductRepository;
+import mobi.common.search.SearchHit;
+import mobi.common.search.SearchIndex;
+import mobi.model.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lớp Service tìm kiếm toàn văn sản phẩm bằng chỉ mục đảo ngược trong bộ nhớ (mobi.common.search).
+ * Chỉ mục được xây dựng khi ứng dụng khởi động và được ProductService cập nhật tăng dần
+ * mỗi khi tạo/sửa/xóa sản phẩm. Mỗi instance giữ chỉ mục riêng của mình: thay đổi chỉ được áp dụng
+ * sau khi transaction commit (rollback thì chỉ mục giữ nguyên), rồi các instance khác được báo qua Redis pub/sub
+ * để đọc lại sản phẩm từ DB và cập nhật chỉ mục của chúng.
+ */
+@Service
+public class ProductSearchService implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+    private static final String CHANNEL = "mobi:product:search";
+    private static final int MAX_LIMIT = 100;
+
+    // Định danh của instance này, dùng để bỏ qua thông báo do chính mình phát ra
+    private final String nodeId = UUID.randomUUID().toString();
+    // Trọng số theo thứ tự trường: tên sản phẩm, tên danh mục, mô tả
+    private final SearchIndex index = new SearchIndex(3.0f, 2.0f, 1.0f);
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    public ProductSearchService(ProductRepository productRepository, StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Xây dựng chỉ mục từ toàn bộ catalog khi ứng dụng sẵn sàng, đọc bằng stream để không nạp hết vào heap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        try (Stream<ProductResponse> products = productRepository.streamAllForExport()) {
+            products.forEach(p -> index.index(p.getId(), p.getName(), p.getCategoryName(), p.getDescription()));
+        }
+        logger.info("Product search index built: {} products in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Thêm hoặc cập nhật một sản phẩm trong chỉ mục sau khi transaction hiện tại commit.
+     *
+     * @param product Sản phẩm vừa được lưu.
+     */
+    public void indexProduct(Product product) {
+        // Đọc các trường ngay trong transaction (danh mục có thể là proxy lazy)
+        Long id = product.getId();
+        String name = product.getName();
+        String categoryName = product.getCategory() != null ? product.getCategory().getName() : null;
+        String description = product.getDescription();
+        afterCommit(id, () -> index.index(id, name, categoryName, description));
+    }
+
+    /**
+     * Xóa một sản phẩm khỏi chỉ mục sau khi transaction hiện tại commit.
+     *
+     * @param id ID sản phẩm.
+     */
+    public void removeProduct(Long id) {
+        afterCommit(id, () -> index.remove(id));
+    }
+
+    /**
+     * Tìm kiếm sản phẩm theo từ khóa, bỏ qua dấu tiếng Việt, xếp hạng theo BM25.
+     * Chỉ mục trả về top-k id, sau đó chi tiết sản phẩm được nạp bằng một truy vấn IN.
+     *
+     * @param query Từ khóa tìm kiếm.
+     * @param limit Số kết quả tối đa.
+     * @return Danh sách sản phẩm theo thứ tự liên quan giảm dần.
+     */
+    public List<ProductResponse> search(String query, int limit) {
+        List<SearchHit> hits = index.search(query, Math.min(Math.max(limit, 1), MAX_LIMIT));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = hits.stream().map(SearchHit::getId).toList();
+        Map<Long, ProductResponse> byId = productRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+
+        // Giữ nguyên thứ tự xếp hạng của chỉ mục
+        List<ProductResponse> results = new ArrayList<>(hits.size());
+        for (Long id : ids) {
+            ProductResponse product = byId.get(id);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0 || nodeId.equals(body.substring(0, separator))) {
+            return;
+        }
+        try {
+            refresh(Long.valueOf(body.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("Cannot refresh search index for {}: {}", body, e.getMessage());
+        }
+    }
+
+    /**
+     * Đọc lại sản phẩm từ DB và cập nhật chỉ mục (xóa khỏi chỉ mục nếu sản phẩm không còn).
+     */
+    private void refresh(Long id) {
+        List<ProductResponse> products = productRepository.findResponsesByIdIn(List.of(id));
+        if (products.isEmpty()) {
+            index.remove(id);
+        } else {
+            ProductResponse p = products.get(0);
+            index.index(p.getId(), p.getName(), p.getCategoryName(), p.getDescription());
+        }
+    }
+
+    /**
+     * Áp dụng thay đổi vào chỉ mục và báo các instance khác sau khi transaction hiện tại commit
+     * (ngay lập tức nếu không có transaction).
+     */
+    private void afterCommit(Long id, Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyAndPublish(id, update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyAndPublish(id, update);
+            }
+        });
+    }
+
+    private void applyAndPublish(Long id, Runnable update) {
+        update.run();
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + ":" + id);
+        } catch (Exception e) {
+            // Instance khác sẽ có chỉ mục cũ cho sản phẩm này tới lần khởi động/thay đổi kế tiếp
+            logger.warn("Cannot publish search index update for product {}: {}", id, e.getMessage());
+        }
+    }
+}
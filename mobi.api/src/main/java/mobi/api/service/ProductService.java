@@ -1,6 +1,10 @@
 package mobi.api.service;
 
+import mobi.api.kafka.ProductChangedEvent;
 import mobi.api.payload.request.ProductRequest;
+import mobi.api.payload.request.ProductSort;
+import mobi.api.payload.response.ProductPageResponse;
+import mobi.api.payload.response.ProductResponse;
 import mobi.api.repository.CategoryRepository;
 import mobi.api.repository.ProductRepository;
 import mobi.model.entity.Category;
@@ -9,50 +13,117 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 public class ProductService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final char CURSOR_SEPARATOR = '|';
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductSearchService productSearchService;
+    private final OutboxService outboxService;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, ProductSearchService productSearchService,
+                          OutboxService outboxService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.productSearchService = productSearchService;
+        this.outboxService = outboxService;
     }
 
     /**
-     * Lấy tất cả các sản phẩm.
-     * Kết quả sẽ được cache với tên "products"
+     * Lấy một trang sản phẩm theo keyset (cursor), có lọc theo danh mục, khoảng giá và sắp xếp.
+     * Mỗi trang được cache riêng trong "productPages" (TTL ngắn, cấu hình ở RedisConfig),
+     * nên việc sửa một sản phẩm không làm mất toàn bộ cache danh sách.
      *
-     * @return Danh sách các sản phẩm.
+     * @param categoryId ID danh mục cần lọc, null nếu không lọc.
+     * @param minPrice   Giá tối thiểu, null nếu không lọc.
+     * @param maxPrice   Giá tối đa, null nếu không lọc.
+     * @param sort       Kiểu sắp xếp.
+     * @param cursor     Cursor trả về từ trang trước, null nếu là trang đầu.
+     * @param size       Số sản phẩm mỗi trang.
+     * @return Trang sản phẩm kèm cursor của trang kế tiếp.
      */
-    @Cacheable(value = "products")
-    public List<Product> getAllProducts() {
-        System.out.println("Fetching all products from DB..."); // Để thấy khi nào dữ liệu được lấy từ DB
-        return productRepository.findAll();
+    @Cacheable(value = "productPages", sync = true, key = "#categoryId + ':' + #minPrice + ':' + #maxPrice + ':' + #sort + ':' + #cursor + ':' + #size")
+    public ProductPageResponse getProductPage(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, ProductSort sort, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Lấy dư một dòng để biết còn trang kế tiếp hay không mà không cần COUNT(*)
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        Cursor after = decodeCursor(cursor, sort);
+        Long afterId = after != null ? after.id : null;
+
+        List<ProductResponse> rows;
+        switch (sort) {
+            case PRICE_ASC:
+                rows = productRepository.findPagePriceAsc(categoryId, minPrice, maxPrice,
+                        after != null ? after.price : null, afterId, limit);
+                break;
+            case PRICE_DESC:
+                rows = productRepository.findPagePriceDesc(categoryId, minPrice, maxPrice,
+                        after != null ? after.price : null, afterId, limit);
+                break;
+            case NAME_ASC:
+                rows = productRepository.findPageNameAsc(categoryId, minPrice, maxPrice,
+                        after != null ? after.name : null, afterId, limit);
+                break;
+            default:
+                rows = productRepository.findPageNewest(categoryId, minPrice, maxPrice, afterId, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductResponse> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? encodeCursor(sort, items.get(items.size() - 1)) : null;
+        return new ProductPageResponse(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Lấy một trang sản phẩm (mới nhất trước) thuộc một tập danh mục, dùng cho "sản phẩm trong cây con".
+     * Tập danh mục lấy từ CategoryTree nên chỉ cần một truy vấn category_id IN (...).
+     *
+     * @param categoryIds Danh sách id danh mục (không rỗng).
+     * @param cursor      Cursor trả về từ trang trước, null nếu là trang đầu.
+     * @param size        Số sản phẩm mỗi trang.
+     * @return Trang sản phẩm kèm cursor của trang kế tiếp.
+     */
+    public ProductPageResponse getProductPageInCategories(List<Long> categoryIds, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Cursor after = decodeCursor(cursor, ProductSort.NEWEST);
+        Long afterId = after != null ? after.id : null;
+
+        List<ProductResponse> rows = productRepository.findPageNewestInCategories(categoryIds, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductResponse> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? encodeCursor(ProductSort.NEWEST, items.get(items.size() - 1)) : null;
+        return new ProductPageResponse(items, nextCursor, hasMore);
     }
 
     /**
      * Tạo sản phẩm mới.
-     * Khi tạo mới, cần xóa cache của "products" (vì danh sách thay đổi)
-     * và xóa cache của "product" nếu id đó có thể trùng.
+     * Khi tạo mới, cần xóa cache các trang "productPages" (vì danh sách thay đổi).
      *
      * @param productRequest Đối tượng Product cần tạo.
      * @return Sản phẩm đã tạo.
      */
-    @Caching(evict = {
-            @CacheEvict(value = "products", allEntries = true), // Xóa toàn bộ cache "products"
-            @CacheEvict(value = "product", key = "#product.id", condition = "#product.id != null") // Xóa cache "product" nếu có id
-    })
-    public Product createProduct(ProductRequest productRequest) {
+    @CacheEvict(value = "productPages", allEntries = true) // Sản phẩm mới làm thay đổi các trang
+    @Transactional
+    public ProductResponse createProduct(ProductRequest productRequest) {
         Product product = new Product();
         product.setName(productRequest.getName());
         product.setPrice(productRequest.getPrice());
@@ -66,28 +137,38 @@ public class ProductService {
         }
 
         System.out.println("Saving product to DB: " + product.getName() + " (Caching disabled)");
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productSearchService.indexProduct(savedProduct);
+        recordChange(savedProduct, ProductChangedEvent.Change.CREATED);
+        return toResponse(savedProduct);
     }
 
-    @Cacheable(value = "productById", key = "#id")
-    public Optional<Product> getProductById(Long id) {
+    /**
+     * Lấy sản phẩm theo ID dưới dạng ProductResponse (kèm tên danh mục) bằng một truy vấn join.
+     *
+     * @param id ID của sản phẩm.
+     * @return Optional chứa sản phẩm nếu tìm thấy.
+     */
+    @Cacheable(value = "productById", key = "#id", sync = true)
+    public Optional<ProductResponse> getProductById(Long id) {
         System.out.println("Find product from DB: " + id);
-        return productRepository.findById(id);
+        return productRepository.findResponseById(id);
     }
 
     /**
      * Cập nhật sản phẩm hiện có.
-     * Khi cập nhật, cần xóa cache của "products" và cache của "product" cụ thể này.
+     * Khi cập nhật, cần xóa cache các trang "productPages" (tên, giá, danh mục có thể đổi) và cache "productById" của sản phẩm này.
      *
      * @param id             ID của sản phẩm cần cập nhật.
      * @param productRequest Đối tượng Product với thông tin cập nhật.
      * @return Optional chứa sản phẩm đã cập nhật.
      */
     @Caching(evict = {
-            @CacheEvict(value = "products", allEntries = true),
-            @CacheEvict(value = "product", key = "#id")
+            @CacheEvict(value = "productPages", allEntries = true),
+            @CacheEvict(value = "productById", key = "#id")
     })
-    public Optional<Product> updateProduct(Long id, ProductRequest productRequest) {
+    @Transactional
+    public Optional<ProductResponse> updateProduct(Long id, ProductRequest productRequest) {
         return productRepository.findById(id).map(existingProduct -> {
             System.out.println("Updating product in DB: " + existingProduct.getName() + " (Caching disabled)");
             existingProduct.setName(productRequest.getName());
@@ -104,24 +185,118 @@ public class ProductService {
                 existingProduct.setCategory(null);
             }
 
-            return productRepository.save(existingProduct);
+            Product savedProduct = productRepository.save(existingProduct);
+            productSearchService.indexProduct(savedProduct);
+            recordChange(savedProduct, ProductChangedEvent.Change.UPDATED);
+            return toResponse(savedProduct);
         });
     }
 
     /**
      * Xóa sản phẩm theo ID.
-     * Khi xóa, cần xóa cache của "products" và cache của "product" cụ thể này.
+     * Khi xóa, cần xóa cache các trang "productPages" và cache "productById" của sản phẩm này.
      *
      * @param id ID của sản phẩm cần xóa.
      */
     @Caching(evict = {
-            @CacheEvict(value = "products", allEntries = true),
-            @CacheEvict(value = "product", key = "#id")
+            @CacheEvict(value = "productPages", allEntries = true),
+            @CacheEvict(value = "productById", key = "#id")
     })
+    @Transactional
     public void deleteProduct(Long id) {
         System.out.println("Deleting product from DB with ID: " + id + " (Caching disabled)");
         productRepository.deleteById(id);
+        productSearchService.removeProduct(id);
+        outboxService.record(ProductChangedEvent.TOPIC, id, new ProductChangedEvent(id, ProductChangedEvent.Change.DELETED, null, null, null));
+    }
+
+    /**
+     * Ghi sự kiện thay đổi sản phẩm vào outbox trong transaction hiện tại.
+     */
+    private void recordChange(Product product, ProductChangedEvent.Change change) {
+        Category category = product.getCategory();
+        outboxService.record(ProductChangedEvent.TOPIC, product.getId(), new ProductChangedEvent(product.getId(), change,
+                product.getName(), product.getPrice(), category != null ? category.getId() : null));
+    }
+
+    /**
+     * Chuyển entity vừa lưu sang ProductResponse; danh mục đã được nạp đầy đủ bằng findById nên không chạm proxy.
+     */
+    private static ProductResponse toResponse(Product product) {
+        Category category = product.getCategory();
+        return new ProductResponse(product.getId(), product.getName(), product.getPrice(), product.getDescription(),
+                category != null ? category.getId() : null, category != null ? category.getName() : null);
     }
 
+    /**
+     * Mã hóa cursor từ dòng cuối của trang: "kiểu sắp xếp|giá trị sắp xếp|id" dạng Base64 URL-safe.
+     */
+    private static String encodeCursor(ProductSort sort, ProductResponse last) {
+        String sortValue;
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                sortValue = last.getPrice().toPlainString();
+                break;
+            case NAME_ASC:
+                sortValue = last.getName();
+                break;
+            default:
+                sortValue = "";
+        }
+        String raw = sort.name() + CURSOR_SEPARATOR + sortValue + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
+    /**
+     * Giải mã và kiểm tra cursor cho kiểu sắp xếp đang dùng. Tên sản phẩm có thể chứa dấu phân cách nên
+     * kiểu sắp xếp tách theo dấu đầu tiên, id theo dấu cuối cùng.
+     *
+     * @throws ResponseStatusException 400 nếu cursor sai định dạng hoặc được tạo cho kiểu sắp xếp khác.
+     */
+    private static Cursor decodeCursor(String cursor, ProductSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(CURSOR_SEPARATOR);
+            int last = raw.lastIndexOf(CURSOR_SEPARATOR);
+            if (first < 0 || first == last) {
+                throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+            }
+            if (!sort.name().equals(raw.substring(0, first))) {
+                throw new ResponseStatusException(BAD_REQUEST, "Cursor does not match sort " + sort);
+            }
+            String sortValue = raw.substring(first + 1, last);
+            Long id = Long.valueOf(raw.substring(last + 1));
+            switch (sort) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    return new Cursor(new BigDecimal(sortValue), null, id);
+                case NAME_ASC:
+                    return new Cursor(null, sortValue, id);
+                default:
+                    return new Cursor(null, null, id);
+            }
+        } catch (IllegalArgumentException e) {
+            // Base64, id hoặc giá không hợp lệ (NumberFormatException cũng là IllegalArgumentException)
+            throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Vị trí sau dòng cuối của trang trước: giá trị sắp xếp (price hoặc name, tùy kiểu sắp xếp) và id.
+     */
+    private static final class Cursor {
+        private final BigDecimal price;
+        private final String name;
+        private final Long id;
+
+        private Cursor(BigDecimal price, String name, Long id) {
+            this.price = price;
+            this.name = name;
+            this.id = id;
+        }
+    }
 }
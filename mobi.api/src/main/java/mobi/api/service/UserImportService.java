@@ -0,0 +1,473 @@
+package mobi.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import mobi.api.kafka.UserChangedEvent;
+import mobi.api.payload.request.SignupRequest;
+import mobi.api.payload.response.UserImportReport;
+import mobi.api.repository.RoleRepository;
+import mobi.model.entity.auth.ERole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lớp Service nhập người dùng hàng loạt từ file CSV hoặc NDJSON (đọc dạng stream, không nạp cả file vào bộ nhớ).
+ * Username/email đã có được nạp một lần vào bộ nhớ để kiểm tra trùng mà không truy vấn từng dòng;
+ * mật khẩu được băm song song trên một pool riêng có giới hạn (lô sau được băm trong khi lô trước đang ghi);
+ * users/user_roles/outbox được ghi bằng JDBC batch, mỗi lô một transaction.
+ * Kết quả (lỗi từng dòng, tiến độ sau mỗi lô, tổng kết) được ghi ra dạng NDJSON.
+ * Mỗi lúc chỉ chạy một lần nhập.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+    private static final String INSERT_USER = "INSERT INTO users (username, email, password, token_version) VALUES (?, ?, ?, 0)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    // Thứ tự cột khi file CSV không có dòng tiêu đề
+    private static final List<String> DEFAULT_COLUMNS = List.of("username", "email", "password", "roles");
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRepository roleRepository;
+    private final OutboxService outboxService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor hashExecutor;
+    private final int chunkSize;
+    private final Semaphore running = new Semaphore(1);
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    @Autowired
+    public UserImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, RoleRepository roleRepository,
+                             OutboxService outboxService, ObjectMapper objectMapper, Validator validator, MeterRegistry meterRegistry,
+                             @Value("${mobi.security.password.strength:10}") int strength,
+                             @Value("${mobi.user-import.hash-threads:0}") int hashThreads,
+                             @Value("${mobi.user-import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRepository = roleRepository;
+        this.outboxService = outboxService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        // Cùng định dạng và cost với PasswordEncoder của ứng dụng, nhưng không dùng chung pool băm của đăng nhập
+        this.encoder = new BCryptPasswordEncoder(strength);
+        int poolSize = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        // Hàng đợi đủ cho hai lô (lô đang ghi và lô đang băm); đầy thì luồng đọc tự băm (CallerRuns) thay vì đọc tiếp
+        this.hashExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * chunkSize), new CustomizableThreadFactory("user-import-hash-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.importedRows = rowCounter(meterRegistry, "imported");
+        this.failedRows = rowCounter(meterRegistry, "failed");
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mobi.user.import.rows")
+                .description("Số dòng nhập người dùng hàng loạt theo kết quả")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nhập người dùng từ input và ghi báo cáo NDJSON ra output.
+     * CSV: mỗi dòng "username,email,password,roles" (roles ngăn cách bởi "|", ví dụ "admin|user"), dòng tiêu đề là tùy chọn.
+     * NDJSON: mỗi dòng {"username":..,"email":..,"password":..,"role":["admin"]}.
+     *
+     * @param input  Nội dung file tải lên.
+     * @param format Định dạng của input.
+     * @param out    Output stream của response.
+     * @throws ResponseStatusException 409 nếu đang có một lần nhập khác chạy.
+     */
+    public void importUsers(InputStream input, Format format, OutputStream out) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Another user import is running");
+        }
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            long start = System.nanoTime();
+            ImportRun run = new ImportRun(writer);
+            run.execute(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format);
+            writer.flush();
+            out.write('\n');
+            logger.info("User import: {} rows, {} imported, {} failed in {} ms", run.processed, run.imported, run.failed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            running.release();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * Trạng thái của một lần nhập.
+     */
+    private final class ImportRun {
+        private final SequenceWriter writer;
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private Long userRoleId;
+        private Long adminRoleId;
+        private long processed;
+        private long imported;
+        private long failed;
+
+        private ImportRun(SequenceWriter writer) {
+            this.writer = writer;
+        }
+
+        private void execute(BufferedReader reader, Format format) throws IOException {
+            userRoleId = roleRepository.findByName(ERole.ROLE_USER).orElseThrow(() -> new RuntimeException("Error: Role is not found.")).getId();
+            adminRoleId = roleRepository.findByName(ERole.ROLE_ADMIN).orElseThrow(() -> new RuntimeException("Error: Role is not found.")).getId();
+            // So sánh không phân biệt hoa thường như collation mặc định của MySQL
+            jdbcTemplate.query("SELECT username, email FROM users", rs -> {
+                usernames.add(normalize(rs.getString(1)));
+                emails.add(normalize(rs.getString(2)));
+            });
+
+            List<String> columns = format == Format.CSV ? null : DEFAULT_COLUMNS;
+            List<Row> rows = new ArrayList<>(chunkSize);
+            Chunk pending = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (columns == null) {
+                    // Dòng đầu có cột "username" là dòng tiêu đề
+                    List<String> header = parseCsvLine(line).stream().map(UserImportService::normalize).toList();
+                    if (header.contains("username")) {
+                        columns = header;
+                        continue;
+                    }
+                    columns = DEFAULT_COLUMNS;
+                }
+
+                processed++;
+                Row row = parseRow(lineNumber, line, format, columns);
+                if (row == null) {
+                    continue;
+                }
+                rows.add(row);
+                if (rows.size() == chunkSize) {
+                    Chunk next = new Chunk(rows);
+                    if (pending != null) {
+                        write(pending);
+                    }
+                    pending = next;
+                    rows = new ArrayList<>(chunkSize);
+                }
+            }
+            if (pending != null) {
+                write(pending);
+            }
+            if (!rows.isEmpty()) {
+                write(new Chunk(rows));
+            }
+            report(new UserImportReport(UserImportReport.SUMMARY, null, null, processed, imported, failed), true);
+        }
+
+        /**
+         * Đọc và kiểm tra một dòng; báo lỗi và trả về null nếu dòng không hợp lệ hoặc trùng.
+         */
+        private Row parseRow(long lineNumber, String line, Format format, List<String> columns) throws IOException {
+            SignupRequest request;
+            try {
+                request = format == Format.CSV ? fromCsv(parseCsvLine(line), columns) : fromJson(objectMapper.readTree(line));
+            } catch (IOException | RuntimeException e) {
+                fail(lineNumber, "Unreadable row");
+                return null;
+            }
+
+            Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                fail(lineNumber, violations.stream().map(v -> v.getPropertyPath() + " " + v.getMessage()).sorted().collect(Collectors.joining("; ")));
+                return null;
+            }
+            String username = normalize(request.getUsername());
+            String email = normalize(request.getEmail());
+            if (usernames.contains(username)) {
+                fail(lineNumber, "Username is already taken");
+                return null;
+            }
+            if (emails.contains(email)) {
+                fail(lineNumber, "Email is already in use");
+                return null;
+            }
+            // Giữ chỗ để bắt cả trùng lặp giữa các dòng trong cùng file
+            usernames.add(username);
+            emails.add(email);
+            return new Row(lineNumber, request, roleIds(request.getRole()));
+        }
+
+        private Set<Long> roleIds(Set<String> roles) {
+            Set<Long> ids = new LinkedHashSet<>();
+            if (roles == null || roles.isEmpty()) {
+                ids.add(userRoleId);
+                return ids;
+            }
+            // Giống đăng ký: "admin" là ROLE_ADMIN, giá trị khác là ROLE_USER
+            for (String role : roles) {
+                ids.add("admin".equals(role) ? adminRoleId : userRoleId);
+            }
+            return ids;
+        }
+
+        /**
+         * Chờ hash của lô rồi ghi lô trong một transaction. Nếu lô vi phạm ràng buộc duy nhất
+         * (có tài khoản được tạo sau khi nạp danh sách, ví dụ đăng ký đồng thời) thì ghi lại từng dòng để tìm dòng lỗi.
+         */
+        private void write(Chunk chunk) throws IOException {
+            List<Row> hashed = new ArrayList<>(chunk.rows.size());
+            for (int i = 0; i < chunk.rows.size(); i++) {
+                Row row = chunk.rows.get(i);
+                try {
+                    row.hash = chunk.hashes.get(i).get();
+                    hashed.add(row);
+                } catch (ExecutionException e) {
+                    fail(row.line, "Cannot hash password");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("User import interrupted", e);
+                }
+            }
+
+            long importedBefore = imported;
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(hashed));
+                imported += hashed.size();
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("User import chunk rejected, retrying row by row: {}", e.getMostSpecificCause().getMessage());
+                for (Row row : hashed) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                        imported++;
+                    } catch (DataIntegrityViolationException rowError) {
+                        fail(row.line, "Username or email is already in use");
+                    }
+                }
+            }
+            importedRows.increment(imported - importedBefore);
+            report(new UserImportReport(UserImportReport.PROGRESS, null, null, processed, imported, failed), true);
+        }
+
+        private void fail(long lineNumber, String message) throws IOException {
+            failed++;
+            failedRows.increment();
+            report(new UserImportReport(UserImportReport.ERROR, lineNumber, message, processed, imported, failed), false);
+        }
+
+        private void report(UserImportReport report, boolean flush) throws IOException {
+            writer.write(report);
+            if (flush) {
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Ghi một lô: users bằng batch có lấy ID tự tăng, rồi user_roles và sự kiện outbox cũng bằng batch.
+     */
+    private void insert(List<Row> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setString(1, row.request.getUsername());
+                ps.setString(2, row.request.getEmail());
+                ps.setString(3, row.hash);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }, keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<Object[]> userRoles = new ArrayList<>(rows.size());
+        List<UserChangedEvent> events = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            long userId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+            for (Long roleId : row.roleIds) {
+                userRoles.add(new Object[]{userId, roleId});
+            }
+            events.add(new UserChangedEvent(userId, UserChangedEvent.Change.CREATED, row.request.getUsername(), row.request.getEmail()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles);
+        outboxService.recordAll(UserChangedEvent.TOPIC, events, UserChangedEvent::getUserId);
+    }
+
+    private static SignupRequest fromCsv(List<String> fields, List<String> columns) {
+        SignupRequest request = new SignupRequest();
+        for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+            String value = fields.get(i).trim();
+            switch (columns.get(i)) {
+                case "username":
+                    request.setUsername(value);
+                    break;
+                case "email":
+                    request.setEmail(value);
+                    break;
+                case "password":
+                    request.setPassword(value);
+                    break;
+                case "roles":
+                case "role":
+                    request.setRole(value.isEmpty() ? null : new HashSet<>(Arrays.asList(value.split("\\|"))));
+                    break;
+                default:
+                    // Bỏ qua cột không dùng
+            }
+        }
+        return request;
+    }
+
+    private static SignupRequest fromJson(JsonNode node) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(text(node, "username"));
+        request.setEmail(text(node, "email"));
+        request.setPassword(text(node, "password"));
+        JsonNode roles = node.has("role") ? node.get("role") : node.get("roles");
+        if (roles != null && roles.isArray()) {
+            Set<String> names = new HashSet<>();
+            roles.forEach(role -> names.add(role.asText()));
+            request.setRole(names);
+        }
+        return request;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() ? value.asText().trim() : null;
+    }
+
+    /**
+     * Tách một dòng CSV; hỗ trợ giá trị trong dấu nháy kép ("" là một dấu nháy), không hỗ trợ giá trị nhiều dòng.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Một dòng hợp lệ đang chờ ghi.
+     */
+    private static final class Row {
+        private final long line;
+        private final SignupRequest request;
+        private final Set<Long> roleIds;
+        private String hash;
+
+        private Row(long line, SignupRequest request, Set<Long> roleIds) {
+            this.line = line;
+            this.request = request;
+            this.roleIds = roleIds;
+        }
+    }
+
+    /**
+     * Một lô dòng cùng các hash mật khẩu đang được tính trên pool.
+     */
+    private final class Chunk {
+        private final List<Row> rows;
+        private final List<Future<String>> hashes;
+
+        private Chunk(List<Row> rows) {
+            this.rows = rows;
+            this.hashes = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                String password = row.request.getPassword();
+                // Không giữ mật khẩu gốc lâu hơn cần thiết
+                row.request.setPassword(null);
+                hashes.add(hashExecutor.submit(() -> encoder.encode(password)));
+            }
+        }
+    }
+}
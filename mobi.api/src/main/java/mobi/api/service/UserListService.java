@@ -0,0 +1,92 @@
+package mobi.api.service;
+
+import mobi.api.payload.response.UserPageResponse;
+import mobi.api.payload.response.UserResponse;
+import mobi.api.repository.UserRepository;
+import mobi.model.entity.auth.ERole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Lớp Service lấy danh sách người dùng cho trang quản trị, phân trang keyset theo username.
+ * Mỗi trang là một truy vấn projection (id, username, email, tên vai trò gộp), không nạp entity và mật khẩu.
+ */
+@Service
+public class UserListService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public UserListService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Lấy một trang người dùng theo keyset (cursor), có lọc theo vai trò, tiền tố username và tên miền email.
+     *
+     * @param role           Vai trò cần lọc, null nếu không lọc.
+     * @param usernamePrefix Tiền tố username, null/rỗng nếu không lọc.
+     * @param emailDomain    Tên miền email (phần sau "@"), null/rỗng nếu không lọc.
+     * @param cursor         Cursor trả về từ trang trước, null nếu là trang đầu.
+     * @param size           Số người dùng mỗi trang.
+     * @return Trang người dùng kèm cursor của trang kế tiếp.
+     */
+    public UserPageResponse getUserPage(ERole role, String usernamePrefix, String emailDomain, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String domain = emailDomain == null || emailDomain.isBlank() ? null : emailDomain.trim();
+        if (domain != null && domain.startsWith("@")) {
+            domain = domain.substring(1);
+        }
+        String prefix = escapeLike(usernamePrefix);
+        String afterUsername = decodeCursor(cursor);
+
+        // Lấy dư một dòng để biết còn trang kế tiếp hay không mà không cần COUNT(*)
+        List<UserRepository.UserSummary> rows = role != null
+                ? userRepository.findSummaryPageByRole(role.name(), prefix, domain, afterUsername, pageSize + 1)
+                : userRepository.findSummaryPage(prefix, domain, afterUsername, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserResponse> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (UserRepository.UserSummary row : hasMore ? rows.subList(0, pageSize) : rows) {
+            List<String> roles = row.getRoles() != null ? Arrays.asList(row.getRoles().split(",")) : new ArrayList<>();
+            items.add(new UserResponse(row.getId(), row.getUsername(), row.getEmail(), roles));
+        }
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1).getUsername()) : null;
+        return new UserPageResponse(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Escape ký tự đại diện của LIKE để giá trị lọc được so khớp nguyên văn.
+     */
+    private static String escapeLike(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String encodeCursor(String username) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package mobi.api.cache;
+
+import mobi.api.payload.response.ProductPageResponse;
+import mobi.api.payload.response.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh CompactRedisSerializer (Smile + LZ4) với GenericJackson2JsonRedisSerializer trên đúng giá trị được ghi vào Redis:
+ * CacheEnvelope chứa một trang sản phẩm (20 mục, như "productPages") hoặc một ProductResponse (như "productById").
+ * Kích thước byte được in ra khi khởi tạo. Chạy sau khi mvn test-compile:
+ * java -cp mobi.api/target/test-classes:mobi.api/target/classes:&lt;classpath test&gt; org.openjdk.jmh.Main CacheSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"page", "product"})
+    public String value;
+
+    @Param({"compact", "json"})
+    public String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private CacheEnvelope envelope;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redisSerializer = "compact".equals(serializer)
+                ? new CompactRedisSerializer(new CacheProperties().getCompressionThreshold())
+                : new GenericJackson2JsonRedisSerializer();
+        Object cached = "page".equals(value) ? page() : product(1);
+        envelope = new CacheEnvelope(cached, System.currentTimeMillis() + 60_000, 12);
+        bytes = redisSerializer.serialize(envelope);
+        System.out.printf("%n[size] value=%s serializer=%s bytes=%d%n", value, serializer, bytes.length);
+    }
+
+    private static ProductResponse product(long id) {
+        return new ProductResponse(id, "Điện thoại Mobi X" + id + " 128GB", new BigDecimal("7490000.00").add(BigDecimal.valueOf(id)),
+                "Màn hình 6.5 inch, pin 5000 mAh, camera 50 MP, sạc nhanh 33 W. Bảo hành chính hãng 12 tháng, "
+                        + "đổi mới trong 30 ngày nếu có lỗi từ nhà sản xuất.", 3L, "Điện thoại");
+    }
+
+    private static ProductPageResponse page() {
+        List<ProductResponse> items = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(product(1000 + i));
+        }
+        return new ProductPageResponse(items, "UFJJQ0VfQVNDfDc0OTEwMjAuMDB8MTAyMA", true);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(envelope);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(bytes);
+    }
+}
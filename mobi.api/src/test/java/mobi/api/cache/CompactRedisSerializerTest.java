@@ -0,0 +1,60 @@
+package mobi.api.cache;
+
+import mobi.api.payload.response.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(64);
+
+    @Test
+    void roundTripsFinalTypesWithTheirClass() {
+        assertThat(serializer.deserialize(serializer.serialize(5L))).isEqualTo(5L);
+        assertThat(serializer.deserialize(serializer.serialize("abc"))).isEqualTo("abc");
+    }
+
+    @Test
+    void roundTripsCompressedValues() {
+        ProductResponse product = new ProductResponse(1L, "x".repeat(500), new BigDecimal("12.50"), "d", 2L, "c");
+        byte[] bytes = serializer.serialize(List.of(product));
+
+        assertThat(bytes[1] & CompactRedisSerializer.FLAG_LZ4).isEqualTo(CompactRedisSerializer.FLAG_LZ4);
+        Object value = serializer.deserialize(bytes);
+        assertThat(value).isInstanceOf(List.class);
+        ProductResponse read = (ProductResponse) ((List<?>) value).get(0);
+        assertThat(read.getName()).isEqualTo(product.getName());
+        assertThat(read.getPrice()).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void rejectsOversizedLengthHeader() {
+        byte[] bytes = serializer.serialize("y".repeat(500));
+        ByteBuffer.wrap(bytes, 2, Integer.BYTES).putInt(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsLengthHeaderThatDoesNotMatchPayload() {
+        byte[] bytes = serializer.serialize("y".repeat(500));
+        ByteBuffer.wrap(bytes, 2, Integer.BYTES).putInt(1000);
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsTruncatedCompressedValue() {
+        byte[] bytes = serializer.serialize("y".repeat(500));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+
+        assertThatThrownBy(() -> serializer.deserialize(truncated)).isInstanceOf(SerializationException.class);
+    }
+}
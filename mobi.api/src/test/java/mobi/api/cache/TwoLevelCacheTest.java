@@ -0,0 +1,89 @@
+package mobi.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheTest {
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("products", false);
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        TwoLevelCacheManager manager = mock(TwoLevelCacheManager.class);
+        RedisLeaseLock leaseLock = mock(RedisLeaseLock.class);
+        when(leaseLock.tryAcquire(anyString(), anyString(), any())).thenReturn(true);
+        when(manager.getLeaseLock()).thenReturn(leaseLock);
+        when(manager.getProperties()).thenReturn(new CacheProperties());
+        cache = new TwoLevelCache("products", Caffeine.newBuilder().build(), remote, Duration.ofMinutes(1), manager,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Đặt một giá trị đã hết hạn logic (vẫn còn trong Redis như trong thời gian grace).
+     */
+    private void putExpired(Object key, Object value) {
+        remote.put(key, new CacheEnvelope(value, System.currentTimeMillis() - 1, 0));
+    }
+
+    @Test
+    void reloadsAnExpiredValueOnTheCallingThread() {
+        putExpired(1L, "old");
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> loaderThread = new AtomicReference<>();
+
+        String value = cache.get(1L, () -> {
+            loaderThread.set(Thread.currentThread());
+            return "new";
+        });
+
+        assertThat(value).isEqualTo("new");
+        assertThat(loaderThread.get()).isSameAs(caller);
+        assertThat(cache.get(1L, () -> "unused")).isEqualTo("new");
+    }
+
+    @Test
+    void servesTheStaleValueWhileAnotherCallerReloads() throws Exception {
+        putExpired(1L, "old");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> reloader = CompletableFuture.supplyAsync(() -> cache.get(1L, () -> {
+            loading.countDown();
+            release.await();
+            return "new";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cache.get(1L, () -> "duplicate load")).isEqualTo("old");
+
+        release.countDown();
+        assertThat(reloader.get(5, TimeUnit.SECONDS)).isEqualTo("new");
+        assertThat(cache.get(1L, () -> "unused")).isEqualTo("new");
+    }
+
+    @Test
+    void servesTheStaleValueWhenTheReloadFails() {
+        putExpired(1L, "old");
+
+        String value = cache.get(1L, () -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        assertThat(value).isEqualTo("old");
+    }
+}
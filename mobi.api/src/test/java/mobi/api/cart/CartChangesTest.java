@@ -0,0 +1,66 @@
+package mobi.api.cart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartChangesTest {
+
+    @Test
+    void sumsRepeatedAdditions() {
+        CartChanges changes = new CartChanges().add(1L, 2).add(1L, 3).add(2L, 1);
+
+        assertThat(changes.getAdditions()).containsExactly(Map.entry(1L, 5), Map.entry(2L, 1));
+        assertThat(changes.getQuantities()).isEmpty();
+        assertThat(changes.getRemovals()).isEmpty();
+    }
+
+    @Test
+    void foldsAdditionAfterSetIntoTheSetQuantity() {
+        CartChanges changes = new CartChanges().set(1L, 2).add(1L, 3);
+
+        assertThat(changes.getQuantities()).containsExactly(Map.entry(1L, 5));
+        assertThat(changes.getAdditions()).isEmpty();
+    }
+
+    @Test
+    void setOverridesEarlierAdditionsAndRemovals() {
+        CartChanges changes = new CartChanges().add(1L, 4).set(1L, 2).remove(2L).set(2L, 7);
+
+        assertThat(changes.getQuantities()).containsExactly(Map.entry(1L, 2), Map.entry(2L, 7));
+        assertThat(changes.getAdditions()).isEmpty();
+        assertThat(changes.getRemovals()).isEmpty();
+    }
+
+    @Test
+    void additionAfterRemovalBecomesASet() {
+        CartChanges changes = new CartChanges().remove(1L).add(1L, 1);
+
+        assertThat(changes.getQuantities()).containsExactly(Map.entry(1L, 1));
+        assertThat(changes.getRemovals()).isEmpty();
+    }
+
+    @Test
+    void removalDiscardsEarlierChanges() {
+        CartChanges changes = new CartChanges().add(1L, 3).set(2L, 4).remove(1L).remove(2L);
+
+        assertThat(changes.getRemovals()).containsExactly(1L, 2L);
+        assertThat(changes.getAdditions()).isEmpty();
+        assertThat(changes.getQuantities()).isEmpty();
+        assertThat(changes.isEmpty()).isFalse();
+    }
+
+    @Test
+    void keepsOneChangePerProduct() {
+        CartChanges changes = new CartChanges();
+        assertThat(changes.isEmpty()).isTrue();
+
+        changes.add(1L, 1).remove(1L).add(1L, 2).add(1L, 3).set(2L, 1).remove(3L).add(4L, 1);
+
+        assertThat(changes.getQuantities()).containsExactly(Map.entry(1L, 5), Map.entry(2L, 1));
+        assertThat(changes.getRemovals()).containsExactly(3L);
+        assertThat(changes.getAdditions()).containsExactly(Map.entry(4L, 1));
+    }
+}
@@ -0,0 +1,170 @@
+package mobi.api.cart;
+
+import mobi.api.repository.CartItemRepository;
+import mobi.api.repository.ProductRepository;
+import mobi.api.repository.UserRepository;
+import mobi.api.support.MySqlTestDatabase;
+import mobi.model.entity.Product;
+import mobi.model.entity.auth.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm thử tải: 64 luồng cùng upsert vào cart_items trên MySQL thật, mỗi thao tác một transaction.
+ * Unique key (user_id, product_id) và INSERT ... ON DUPLICATE KEY UPDATE phải cho đúng một dòng mỗi sản phẩm,
+ * không mất lượt cộng và không lỗi khóa. CSDL lấy từ MySqlTestDatabase (-Dmobi.test.jdbc-url hoặc Docker);
+ * bỏ qua khi không có, trừ khi chạy với profile integration-tests.
+ */
+@ExtendWith(MySqlTestDatabase.class)
+@DataJpaTest(properties = {"mobi.cart.store=jpa", "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaCartStore.class, CartPersistence.class})
+// Mỗi luồng tự mở transaction của mình; dữ liệu chuẩn bị phải được commit để các luồng thấy
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaCartStoreConcurrencyTest {
+    private static final int THREADS = 64;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        MySqlTestDatabase.register(registry, THREADS);
+    }
+
+    @Autowired
+    private JpaCartStore cartStore;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        String name = UUID.randomUUID().toString().substring(0, 20);
+        userId = userRepository.save(new User(name, name + "@example.com", "secret")).getId();
+    }
+
+    private List<Long> createProducts(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(productRepository.save(new Product("Product " + i, new BigDecimal("10.00"), null)).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Chạy task trên THREADS luồng, cùng xuất phát sau một latch; lỗi của bất kỳ luồng nào làm test thất bại.
+     */
+    private static void runConcurrently(ThrowingTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentAddsToOneLineAreNeitherLostNorDuplicated() throws Exception {
+        Long productId = createProducts(1).get(0);
+        int addsPerThread = 20;
+        AtomicInteger created = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < addsPerThread; i++) {
+                if (cartStore.add(userId, productId, 1)) {
+                    created.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(created).hasValue(1);
+        assertThat(cartStore.getItems(userId)).containsExactly(Map.entry(productId, THREADS * addsPerThread));
+        assertThat(cartItemRepository.findByUserIdOrderById(userId)).hasSize(1);
+    }
+
+    @Test
+    void concurrentAddsAndSetsAcrossProductsKeepOneRowPerProduct() throws Exception {
+        List<Long> productIds = createProducts(8);
+        int rounds = 5;
+
+        runConcurrently(thread -> {
+            List<Long> order = new ArrayList<>(productIds);
+            for (int round = 0; round < rounds; round++) {
+                Collections.shuffle(order);
+                for (Long productId : order) {
+                    cartStore.add(userId, productId, 1);
+                }
+            }
+        });
+
+        Map<Long, Integer> items = cartStore.getItems(userId);
+        assertThat(items).hasSize(productIds.size());
+        assertThat(items.values()).allMatch(quantity -> quantity == THREADS * rounds);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items WHERE user_id = ?", Integer.class, userId);
+        assertThat(rows).isEqualTo(productIds.size());
+    }
+
+    @Test
+    void concurrentSetsConvergeToOneOfTheWrittenQuantities() throws Exception {
+        List<Long> productIds = createProducts(4);
+
+        runConcurrently(thread -> {
+            for (Long productId : productIds) {
+                cartStore.apply(userId, new CartChanges().set(productId, thread + 1));
+            }
+        });
+
+        Map<Long, Integer> items = cartStore.getItems(userId);
+        assertThat(items).hasSize(productIds.size());
+        assertThat(items.values()).allMatch(quantity -> quantity >= 1 && quantity <= THREADS);
+        assertThat(cartItemRepository.findByUserIdOrderById(userId)).hasSize(productIds.size());
+    }
+
+    @FunctionalInterface
+    private interface ThrowingTask {
+        void run(int thread) throws Exception;
+    }
+}
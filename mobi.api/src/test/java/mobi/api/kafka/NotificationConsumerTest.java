@@ -0,0 +1,162 @@
+package mobi.api.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class NotificationConsumerTest {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private JavaMailSender mailSender;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private MeterRegistry meterRegistry;
+    private NotificationConsumer consumer;
+    // Người nhận của từng lần gọi send(...)
+    private final List<List<String>> attempts = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mailSender = mock(JavaMailSender.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new NotificationConsumer(mailSender, new NotificationTemplates(), kafkaTemplate, meterRegistry,
+                MAX_ATTEMPTS, Duration.ZERO);
+    }
+
+    private static ConsumerRecord<String, NotificationEvent> record(int offset, NotificationEvent event) {
+        return new ConsumerRecord<>(NotificationProducer.TOPIC, 0, offset, "key", event);
+    }
+
+    private static NotificationEvent event(long userId) {
+        return new NotificationEvent(NotificationType.PASSWORD_CHANGED, userId, "user" + userId + "@example.com", "user" + userId, null);
+    }
+
+    /**
+     * Giả lập SMTP: email gửi tới các địa chỉ trong failing luôn lỗi, các email khác gửi được.
+     */
+    private void failFor(String... failing) {
+        List<String> failingRecipients = Arrays.asList(failing);
+        doAnswer(invocation -> {
+            List<String> recipients = new ArrayList<>();
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (Object argument : invocation.getArguments()) {
+                SimpleMailMessage message = (SimpleMailMessage) argument;
+                String to = Objects.requireNonNull(message.getTo())[0];
+                recipients.add(to);
+                if (failingRecipients.contains(to)) {
+                    failed.put(message, new IllegalStateException("550 mailbox unavailable"));
+                }
+            }
+            attempts.add(recipients);
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+    }
+
+    private double emails(String result) {
+        return meterRegistry.get("mobi.notification.emails").tag("result", result).counter().count();
+    }
+
+    @Test
+    void sendsTheWholeBatchInOneCall() {
+        failFor();
+
+        consumer.onBatch(List.of(record(0, event(1)), record(1, event(2))));
+
+        assertThat(attempts).hasSize(1);
+        assertThat(attempts.get(0)).containsExactlyInAnyOrder("user1@example.com", "user2@example.com");
+        verify(kafkaTemplate, never()).send(any(String.class), any(String.class), any());
+        assertThat(emails("sent")).isEqualTo(2);
+    }
+
+    @Test
+    void retriesOnlyTheFailedMessagesAndDeadLettersThemAfterMaxAttempts() {
+        failFor("user2@example.com");
+        NotificationEvent failing = event(2);
+
+        consumer.onBatch(List.of(record(0, event(1)), record(1, failing), record(2, event(3))));
+
+        assertThat(attempts).hasSize(MAX_ATTEMPTS);
+        assertThat(attempts.get(0)).containsExactlyInAnyOrder("user1@example.com", "user2@example.com", "user3@example.com");
+        assertThat(attempts.subList(1, MAX_ATTEMPTS)).allSatisfy(recipients -> assertThat(recipients).containsExactly("user2@example.com"));
+        verify(kafkaTemplate).send(NotificationConsumer.DLT_TOPIC, "2", failing);
+        verify(kafkaTemplate, times(1)).send(any(String.class), any(String.class), any());
+        assertThat(emails("sent")).isEqualTo(2);
+        assertThat(emails("dead-lettered")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotDeadLetterWhenARetrySucceeds() {
+        int[] calls = {0};
+        doAnswer(invocation -> {
+            if (calls[0]++ == 0) {
+                SimpleMailMessage first = (SimpleMailMessage) invocation.getArguments()[0];
+                throw new MailSendException(Map.of(first, new IllegalStateException("421 try again later")));
+            }
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        consumer.onBatch(List.of(record(0, event(1))));
+
+        verify(mailSender, times(2)).send(any(SimpleMailMessage[].class));
+        verify(kafkaTemplate, never()).send(any(String.class), any(String.class), any());
+        assertThat(emails("sent")).isEqualTo(1);
+    }
+
+    @Test
+    void deadLettersTheWholeBatchWhenSmtpIsUnavailable() {
+        doThrow(new MailAuthenticationException("535 authentication failed"))
+                .when(mailSender).send(any(SimpleMailMessage[].class));
+        NotificationEvent first = event(1);
+        NotificationEvent second = event(2);
+
+        consumer.onBatch(List.of(record(0, first), record(1, second)));
+
+        verify(mailSender, times(MAX_ATTEMPTS)).send(any(SimpleMailMessage[].class));
+        verify(kafkaTemplate).send(NotificationConsumer.DLT_TOPIC, "1", first);
+        verify(kafkaTemplate).send(NotificationConsumer.DLT_TOPIC, "2", second);
+        assertThat(emails("dead-lettered")).isEqualTo(2);
+    }
+
+    @Test
+    void deliversRecordsBeforeAnUnreadableOneAndReportsItsIndex() {
+        failFor();
+
+        assertThatThrownBy(() -> consumer.onBatch(List.of(record(0, event(1)), record(1, null), record(2, event(3)))))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getIndex()).isEqualTo(1));
+
+        assertThat(attempts).containsExactly(List.of("user1@example.com"));
+        verify(kafkaTemplate, never()).send(eq(NotificationConsumer.DLT_TOPIC), any(String.class), any());
+    }
+}
@@ -0,0 +1,201 @@
+package mobi.api.kafka;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import mobi.api.config.KafkaConsumerConfig;
+import mobi.api.config.KafkaTopicConfig;
+import mobi.api.service.OutboxService;
+import mobi.api.support.MySqlTestDatabase;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test đầu-cuối của thông báo email: NotificationProducer ghi outbox, OutboxRelay gửi lên Kafka nhúng,
+ * NotificationConsumer nhận theo lô và gửi qua SMTP giả lập (GreenMail); bản ghi không đọc được vào notification-topic.DLT.
+ * Outbox cần MySQL thật từ MySqlTestDatabase (-Dmobi.test.jdbc-url hoặc Docker); bỏ qua khi không có,
+ * trừ khi chạy với profile integration-tests.
+ */
+@ExtendWith(MySqlTestDatabase.class)
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false",
+        "spring.kafka.consumer.group-id=notification-flow-test",
+        "mobi.outbox.poll-interval=100",
+        "mobi.notification.backoff=100ms"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EmbeddedKafka(partitions = 3, topics = {NotificationProducer.TOPIC, NotificationConsumer.DLT_TOPIC},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@ImportAutoConfiguration({KafkaAutoConfiguration.class, MailSenderAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({NotificationProducer.class, NotificationConsumer.class, NotificationTemplates.class, OutboxService.class, OutboxRelay.class,
+        KafkaConsumerConfig.class, KafkaTopicConfig.class, NotificationFlowTest.Metrics.class})
+// publish cần transaction của chính nó để outbox được commit cho relay thấy
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationFlowTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int LATENCY_SAMPLES = 50;
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        MySqlTestDatabase.register(registry, 5);
+    }
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private NotificationProducer notificationProducer;
+    @Autowired
+    private JavaMailSender mailSender;
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private static NotificationEvent passwordReset(long userId) {
+        return new NotificationEvent(NotificationType.PASSWORD_RESET_REQUESTED, userId, "user" + userId + "@example.com",
+                "user" + userId, Map.of("resetLink", "https://mobi.example/reset?token=" + userId));
+    }
+
+    private void publish(NotificationEvent event) {
+        transactionTemplate.executeWithoutResult(status -> notificationProducer.publish(event));
+    }
+
+    @Test
+    void deliversPublishedNotificationsByEmail() throws Exception {
+        for (long userId = 1; userId <= 3; userId++) {
+            publish(passwordReset(userId));
+        }
+
+        assertThat(greenMail.waitForIncomingEmail(TIMEOUT.toMillis(), 3)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(Arrays.stream(received).map(message -> {
+            try {
+                return message.getAllRecipients()[0].toString();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })).containsExactlyInAnyOrder("user1@example.com", "user2@example.com", "user3@example.com");
+        assertThat(received[0].getSubject()).isEqualTo("Khôi phục mật khẩu");
+        assertThat(received[0].getContent().toString()).contains("https://mobi.example/reset?token=");
+    }
+
+    @Test
+    void sendsUnreadableRecordsToTheDeadLetterTopic() throws Exception {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("dlt-reader", "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps);
+             Consumer<byte[], byte[]> dltConsumer = new KafkaConsumer<>(consumerProps)) {
+            broker.consumeFromAnEmbeddedTopic(dltConsumer, NotificationConsumer.DLT_TOPIC);
+            producer.send(new ProducerRecord<>(NotificationProducer.TOPIC, "42", "{not json")).get(10, TimeUnit.SECONDS);
+
+            ConsumerRecord<byte[], byte[]> deadLetter = KafkaTestUtils.getSingleRecord(dltConsumer, NotificationConsumer.DLT_TOPIC, TIMEOUT);
+
+            assertThat(new String(deadLetter.key(), StandardCharsets.UTF_8)).isEqualTo("42");
+            assertThat(deadLetter.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN)).isNotNull();
+        }
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    /**
+     * forgot-password trước đây gửi email ngay trong request; nay chỉ ghi một dòng outbox.
+     * So sánh hai cách trên cùng máy (SMTP cục bộ nên con số cho SMTP thật còn lớn hơn nhiều).
+     */
+    @Test
+    void enqueueingIsFasterThanSendingMailInTheRequest() {
+        long[] direct = new long[LATENCY_SAMPLES];
+        long[] queued = new long[LATENCY_SAMPLES];
+        for (int i = 0; i < LATENCY_SAMPLES; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo("direct" + i + "@example.com");
+            message.setSubject("Khôi phục mật khẩu");
+            message.setText("https://mobi.example/reset?token=" + i);
+            long start = System.nanoTime();
+            mailSender.send(message);
+            direct[i] = System.nanoTime() - start;
+
+            NotificationEvent event = passwordReset(1000 + i);
+            start = System.nanoTime();
+            publish(event);
+            queued[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(direct);
+        Arrays.sort(queued);
+        double directMillis = direct[LATENCY_SAMPLES / 2] / 1_000_000.0;
+        double queuedMillis = queued[LATENCY_SAMPLES / 2] / 1_000_000.0;
+        System.out.printf("forgot-password notification p50: smtp in request=%.2f ms, outbox=%.2f ms%n", directMillis, queuedMillis);
+
+        assertThat(queuedMillis).isLessThan(directMillis);
+        assertThat(greenMail.waitForIncomingEmail(TIMEOUT.toMillis(), 2 * LATENCY_SAMPLES)).isTrue();
+    }
+}
@@ -0,0 +1,37 @@
+package mobi.api.kafka;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationTemplatesTest {
+    private final NotificationTemplates templates = new NotificationTemplates();
+
+    @Test
+    void rendersSubjectFromTheFirstLineAndFillsPlaceholders() {
+        NotificationEvent event = new NotificationEvent(NotificationType.PASSWORD_RESET_REQUESTED, 7L, "an@example.com", "an",
+                Map.of("resetLink", "https://mobi.example/reset?token=abc"));
+
+        SimpleMailMessage message = templates.render(event);
+
+        assertThat(message.getTo()).containsExactly("an@example.com");
+        assertThat(message.getSubject()).isEqualTo("Khôi phục mật khẩu");
+        assertThat(message.getText())
+                .startsWith("Xin chào an,")
+                .contains("https://mobi.example/reset?token=abc")
+                .doesNotContain("{{");
+    }
+
+    @Test
+    void rendersEveryTypeWithoutParams() {
+        for (NotificationType type : NotificationType.values()) {
+            SimpleMailMessage message = templates.render(new NotificationEvent(type, 1L, "b@example.com", "b", null));
+
+            assertThat(message.getSubject()).isNotBlank();
+            assertThat(message.getText()).contains("Xin chào b,");
+        }
+    }
+}
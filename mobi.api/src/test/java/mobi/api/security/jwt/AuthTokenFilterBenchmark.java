@@ -0,0 +1,227 @@
+package mobi.api.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import mobi.api.security.services.TokenVersionService;
+import mobi.api.security.services.UserDetailsImpl;
+import mobi.api.support.MySqlTestDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Đo chi phí xác thực JWT của mỗi request qua AuthTokenFilter thật (MockHttpServletRequest, chuỗi filter rỗng):
+ * token chưa có trong cache (parse + kiểm tra chữ ký), token đã có trong cache, so với đường cũ
+ * (dựng khóa và parse hai lần, rồi loadUserByUsername: một transaction gồm câu SELECT người dùng và câu SELECT vai trò).
+ * Phiên bản token lấy từ một Caffeine thay cho L1 của "tokenVersions"; filter thu hồi rỗng nên không gọi Redis.
+ * Đường cũ gọi thẳng JDBC nên là cận dưới (chưa tính Hibernate và pool), cần MySQL qua -Dmobi.test.jdbc-url
+ * (cùng mobi.test.jdbc-username, mobi.test.jdbc-password). Chạy sau khi mvn test-compile:
+ * java -Dmobi.test.jdbc-url=... -cp mobi.api/target/test-classes:mobi.api/target/classes:&lt;classpath test&gt; org.openjdk.jmh.Main AuthTokenFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+    private static final String SECRET = "3f2c8a7d9b6e5f1c4a8d7e9f2b1c3d5f6a9c8e7d5f2a1b4c7d8e9f0a2c3b5d7";
+    private static final String USERNAME = "jmh_filter_user";
+    private static final long USER_ID = 42L;
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    private JwtVerifier jwtVerifier;
+    private AuthTokenFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtVerifier = new JwtVerifier(SECRET, 10_000, Duration.ofMinutes(5));
+        JwtUtils jwtUtils = new JwtUtils(jwtVerifier);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        UserDetailsImpl principal = new UserDetailsImpl(USER_ID, USERNAME, USERNAME + "@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), 0L);
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        // Thay cho lần đọc trúng L1 của cache "tokenVersions"
+        Cache<Long, Long> versions = Caffeine.newBuilder().maximumSize(10_000).build();
+        versions.put(USER_ID, 0L);
+        TokenVersionService tokenVersionService = new TokenVersionService(null, null) {
+            @Override
+            public Long currentVersion(Long userId) {
+                return versions.getIfPresent(userId);
+            }
+        };
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), jwtVerifier, new SimpleMeterRegistry(), 86_400_000L, 10_000L, 0.001);
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtVerifier", jwtVerifier);
+        ReflectionTestUtils.setField(filter, "tokenVersionService", tokenVersionService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", tokenRevocationService);
+
+        request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    private Authentication authenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        if (authentication == null) {
+            throw new IllegalStateException("Token was not accepted");
+        }
+        return authentication;
+    }
+
+    /**
+     * Token chưa có trong cache của JwtVerifier (mỗi lần gọi xóa khỏi cache trước, tốn thêm một lần băm SHA-256).
+     */
+    @Benchmark
+    public Authentication coldParse() throws Exception {
+        jwtVerifier.invalidate(token);
+        filter.doFilter(request, response, CHAIN);
+        return authenticated();
+    }
+
+    /**
+     * Token đã được xác thực trước đó: chỉ băm token và đọc cache.
+     */
+    @Benchmark
+    public Authentication cacheHit() throws Exception {
+        filter.doFilter(request, response, CHAIN);
+        return authenticated();
+    }
+
+    /**
+     * Đường cũ: validateJwtToken và getUserNameFromJwtToken (mỗi hàm tự dựng khóa và parser),
+     * rồi tải người dùng và vai trò từ CSDL trong một transaction.
+     */
+    @Benchmark
+    public Authentication legacyParseAndLoad(Database database) throws Exception {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build().parse(token);
+        String username = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+        UserDetailsImpl userDetails = database.loadUserByUsername(username);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authenticated();
+    }
+
+    /**
+     * Kết nối MySQL cho đường cũ, cùng các bảng users/roles/user_roles tối thiểu và một người dùng mẫu.
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+        private Connection connection;
+        private PreparedStatement findUser;
+        private PreparedStatement findRoles;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            String url = System.getProperty(MySqlTestDatabase.JDBC_URL);
+            if (url == null) {
+                throw new IllegalStateException("legacyParseAndLoad needs -D" + MySqlTestDatabase.JDBC_URL);
+            }
+            connection = DriverManager.getConnection(url, System.getProperty(MySqlTestDatabase.JDBC_USERNAME, "root"),
+                    System.getProperty(MySqlTestDatabase.JDBC_PASSWORD, ""));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS roles (id bigint AUTO_INCREMENT PRIMARY KEY, "
+                        + "name enum('ROLE_ADMIN','ROLE_USER') NOT NULL UNIQUE)");
+                statement.execute("CREATE TABLE IF NOT EXISTS users (id bigint AUTO_INCREMENT PRIMARY KEY, "
+                        + "email varchar(50) NOT NULL UNIQUE, password varchar(120) NOT NULL, "
+                        + "token_version bigint NOT NULL DEFAULT 0, username varchar(50) NOT NULL UNIQUE)");
+                statement.execute("CREATE TABLE IF NOT EXISTS user_roles (user_id bigint NOT NULL, role_id bigint NOT NULL, "
+                        + "PRIMARY KEY (user_id, role_id))");
+                statement.execute("INSERT IGNORE INTO roles (name) VALUES ('ROLE_USER')");
+                statement.execute("INSERT IGNORE INTO users (username, email, password) VALUES ('" + USERNAME + "', '"
+                        + USERNAME + "@example.com', '$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbench')");
+                statement.execute("INSERT IGNORE INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                        + "WHERE u.username = '" + USERNAME + "' AND r.name = 'ROLE_USER'");
+            }
+            connection.setAutoCommit(false);
+            findUser = connection.prepareStatement("SELECT id, email, password, token_version, username FROM users WHERE username = ?");
+            findRoles = connection.prepareStatement("SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ?");
+        }
+
+        /**
+         * Tương đương UserDetailsServiceImpl.loadUserByUsername: người dùng, rồi vai trò (LAZY), trong một transaction.
+         */
+        UserDetailsImpl loadUserByUsername(String username) throws SQLException {
+            try {
+                findUser.setString(1, username);
+                long id;
+                String email;
+                String password;
+                long tokenVersion;
+                try (ResultSet user = findUser.executeQuery()) {
+                    if (!user.next()) {
+                        throw new UsernameNotFoundException("User Not Found with username: " + username);
+                    }
+                    id = user.getLong("id");
+                    email = user.getString("email");
+                    password = user.getString("password");
+                    tokenVersion = user.getLong("token_version");
+                }
+                findRoles.setLong(1, id);
+                List<GrantedAuthority> authorities = new ArrayList<>();
+                try (ResultSet roles = findRoles.executeQuery()) {
+                    while (roles.next()) {
+                        authorities.add(new SimpleGrantedAuthority(roles.getString(1)));
+                    }
+                }
+                connection.commit();
+                return new UserDetailsImpl(id, username, email, password, authorities, tokenVersion);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+}
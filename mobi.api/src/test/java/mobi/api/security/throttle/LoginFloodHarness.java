@@ -0,0 +1,239 @@
+package mobi.api.security.throttle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import mobi.api.security.services.BoundedPasswordEncoder;
+import mobi.api.security.services.PasswordHashingBusyException;
+import mobi.api.security.services.UserDetailsImpl;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dội POST /api/auth/signin từ vài IP với vài username (mật khẩu sai) trong khi người dùng thật vẫn đăng nhập,
+ * rồi báo số lần đăng nhập thành công mỗi giây và p50/p99 của người dùng thật, với LoginThrottle tắt và bật.
+ * Chuỗi xử lý giống lúc chạy thật nhưng dựng trong cùng JVM: LoginThrottleFilter -> DaoAuthenticationProvider
+ * -> BoundedPasswordEncoder (BCrypt cost 10, cấu hình mặc định); người dùng giữ trong bộ nhớ thay cho DB.
+ * Kẻ tấn công nghỉ ATTACK_PAUSE giữa hai lần gửi để luồng client của chính harness không chiếm CPU của server.
+ * Chạy sau khi mvn test-compile (tham số: số giây đo mỗi chế độ, mặc định 60 = một cửa sổ IP):
+ * java -cp mobi.api/target/test-classes:mobi.api/target/classes:&lt;classpath test&gt; mobi.api.security.throttle.LoginFloodHarness
+ */
+public class LoginFloodHarness {
+    private static final String SIGNIN_PATH = "/api/auth/signin";
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int LEGITIMATE_USERS = 500;
+    private static final int LEGITIMATE_THREADS = 4;
+    private static final List<String> ATTACKER_IPS = List.of("203.0.113.7", "203.0.113.8", "198.51.100.23");
+    private static final List<String> ATTACKED_USERNAMES = List.of("admin", "root", "support");
+    private static final int THREADS_PER_ATTACKER_IP = 4;
+    private static final Duration ATTACK_PAUSE = Duration.ofMillis(10);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    private final Map<String, UserDetails> users = new HashMap<>();
+
+    private Result run(boolean throttled, Duration duration) throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setEnabled(throttled);
+        LoginThrottle loginThrottle = new LoginThrottle(properties, mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), meterRegistry);
+        LoginThrottleFilter filter = new LoginThrottleFilter();
+        ReflectionTestUtils.setField(filter, "loginThrottle", loginThrottle);
+
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(10, 0, 100, Duration.ofSeconds(2),
+                Duration.ofSeconds(1), meterRegistry);
+        try {
+            if (users.isEmpty()) {
+                String hash = passwordEncoder.encode(PASSWORD);
+                for (int i = 0; i < LEGITIMATE_USERS; i++) {
+                    String username = "customer" + i;
+                    users.put(username, new UserDetailsImpl((long) i, username, username + "@example.com", hash,
+                            List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+                }
+            }
+            DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+            authenticationProvider.setUserDetailsService(username -> {
+                UserDetails user = users.get(username);
+                if (user == null) {
+                    throw new UsernameNotFoundException("User Not Found with username: " + username);
+                }
+                return user;
+            });
+            authenticationProvider.setPasswordEncoder(passwordEncoder);
+            FilterChain signin = (request, response) -> {
+                JsonNode body = MAPPER.readTree(request.getInputStream());
+                HttpServletResponse httpResponse = (HttpServletResponse) response;
+                try {
+                    authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(
+                            body.get("userName").asText(), body.get("password").asText()));
+                    httpResponse.setStatus(HttpServletResponse.SC_OK);
+                } catch (PasswordHashingBusyException e) {
+                    httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                } catch (AuthenticationException e) {
+                    httpResponse.setStatus(e.getCause() instanceof PasswordHashingBusyException
+                            ? HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_UNAUTHORIZED);
+                }
+            };
+
+            Flood flood = new Flood(filter, signin);
+            flood.start();
+            TimeUnit.MILLISECONDS.sleep(WARMUP.toMillis());
+            flood.measuring = true;
+            long start = System.nanoTime();
+            TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+            flood.measuring = false;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            flood.stop();
+            return new Result(throttled, seconds, flood);
+        } finally {
+            passwordEncoder.destroy();
+        }
+    }
+
+    private static int signin(LoginThrottleFilter filter, FilterChain signin, String ip, String username, String password) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SIGNIN_PATH);
+        request.setServletPath(SIGNIN_PATH);
+        request.setRemoteAddr(ip);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(MAPPER.writeValueAsString(Map.of("userName", username, "password", password)).getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, signin);
+        return response.getStatus();
+    }
+
+    /**
+     * Các luồng tấn công và người dùng thật; chỉ ghi kết quả khi measuring bật.
+     */
+    private static final class Flood {
+        private final LoginThrottleFilter filter;
+        private final FilterChain signin;
+        private final List<Thread> threads = new ArrayList<>();
+        private final List<Long> legitimateNanos = new ArrayList<>();
+        private final ConcurrentMap<Integer, AtomicLong> legitimateStatuses = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer, AtomicLong> attackStatuses = new ConcurrentHashMap<>();
+        private final AtomicLong nextUser = new AtomicLong();
+        private volatile boolean running = true;
+        private volatile boolean measuring;
+
+        private Flood(LoginThrottleFilter filter, FilterChain signin) {
+            this.filter = filter;
+            this.signin = signin;
+        }
+
+        private void start() {
+            for (int i = 0; i < ATTACKER_IPS.size() * THREADS_PER_ATTACKER_IP; i++) {
+                // Mỗi IP thử lần lượt mọi username
+                String ip = ATTACKER_IPS.get(i / THREADS_PER_ATTACKER_IP);
+                String username = ATTACKED_USERNAMES.get(i % ATTACKED_USERNAMES.size());
+                start(new Thread(() -> attack(ip, username), "attacker-" + i));
+            }
+            for (int i = 0; i < LEGITIMATE_THREADS; i++) {
+                start(new Thread(this::signInAsCustomers, "customer-" + i));
+            }
+        }
+
+        private void start(Thread thread) {
+            threads.add(thread);
+            thread.start();
+        }
+
+        private void stop() throws InterruptedException {
+            running = false;
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        private void attack(String ip, String username) {
+            long attempt = 0;
+            while (running) {
+                try {
+                    int status = signin(filter, signin, ip, username, "guess" + attempt++);
+                    if (measuring) {
+                        attackStatuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                    }
+                    TimeUnit.MILLISECONDS.sleep(ATTACK_PAUSE.toMillis());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        /**
+         * Mỗi lần đăng nhập là một khách hàng khác, từ IP riêng của khách đó.
+         */
+        private void signInAsCustomers() {
+            while (running) {
+                int user = (int) (nextUser.getAndIncrement() % LEGITIMATE_USERS);
+                try {
+                    long start = System.nanoTime();
+                    int status = signin(filter, signin, "10.0." + user / 250 + "." + user % 250, "customer" + user, PASSWORD);
+                    long nanos = System.nanoTime() - start;
+                    if (measuring) {
+                        legitimateStatuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                        synchronized (legitimateNanos) {
+                            legitimateNanos.add(nanos);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private record Result(boolean throttled, double seconds, Flood flood) {
+        private double millis(double percentile) {
+            long[] sorted = flood.legitimateNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1_000_000.0;
+        }
+
+        private void print() {
+            long succeeded = flood.legitimateStatuses.getOrDefault(HttpServletResponse.SC_OK, new AtomicLong()).get();
+            System.out.printf("throttle=%-3s legitimate: %6.2f sign-ins/s  p50=%8.1f ms  p99=%8.1f ms  statuses=%s  attack statuses=%s%n",
+                    throttled ? "on" : "off", succeeded / seconds, millis(0.50), millis(0.99),
+                    new TreeMap<>(flood.legitimateStatuses), new TreeMap<>(flood.attackStatuses));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 60);
+        LoginFloodHarness harness = new LoginFloodHarness();
+        System.out.printf("%d cores, %d attacker IPs x %d threads on %s, %d customer threads, %ds per mode%n",
+                Runtime.getRuntime().availableProcessors(), ATTACKER_IPS.size(), THREADS_PER_ATTACKER_IP, ATTACKED_USERNAMES,
+                LEGITIMATE_THREADS, duration.toSeconds());
+        harness.run(false, duration).print();
+        harness.run(true, duration).print();
+    }
+}
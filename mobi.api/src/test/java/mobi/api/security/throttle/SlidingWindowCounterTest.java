@@ -0,0 +1,68 @@
+package mobi.api.security.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+    private static final long WINDOW = 1000;
+    // Đầu một cửa sổ
+    private static final long START = 10 * WINDOW;
+
+    @Test
+    void countsWithinTheCurrentWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(64, WINDOW);
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(counter.increment("ip:1", START + i)).isEqualTo(i);
+        }
+        assertThat(counter.estimate("ip:1", START + WINDOW - 1)).isEqualTo(5);
+        assertThat(counter.estimate("ip:2", START)).isZero();
+    }
+
+    @Test
+    void weighsThePreviousWindowByItsRemainingOverlap() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(64, WINDOW);
+        for (int i = 0; i < 10; i++) {
+            counter.increment("user:a", START);
+        }
+
+        // Cửa sổ kế tiếp: đếm cũ giảm tuyến tính theo phần còn nằm trong cửa sổ trượt
+        assertThat(counter.estimate("user:a", START + WINDOW)).isEqualTo(10);
+        assertThat(counter.estimate("user:a", START + WINDOW + WINDOW / 2)).isEqualTo(5);
+        assertThat(counter.increment("user:a", START + WINDOW + WINDOW / 2)).isEqualTo(6);
+
+        // Sau một cửa sổ nữa chỉ còn lần đếm của cửa sổ liền trước
+        assertThat(counter.estimate("user:a", START + 2 * WINDOW)).isEqualTo(1);
+        // Cũ hơn một cửa sổ thì bị bỏ hẳn
+        assertThat(counter.estimate("user:a", START + 3 * WINDOW)).isZero();
+        assertThat(counter.increment("user:a", START + 5 * WINDOW)).isEqualTo(1);
+    }
+
+    @Test
+    void saturateRaisesButNeverLowersTheCount() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(64, WINDOW);
+        counter.saturate("ip:1", START, 20);
+        assertThat(counter.estimate("ip:1", START)).isEqualTo(20);
+
+        counter.saturate("ip:1", START, 3);
+        assertThat(counter.estimate("ip:1", START)).isEqualTo(20);
+
+        counter.saturate("ip:1", START, Integer.MAX_VALUE);
+        assertThat(counter.estimate("ip:1", START)).isEqualTo(0xFFFF);
+    }
+
+    @Test
+    void evictsTheLeastActiveKeyWhenFull() {
+        // 4 ô, đều nằm trong vùng dò của mọi khóa
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, WINDOW);
+        for (int i = 0; i < 100; i++) {
+            counter.increment("hot", START);
+        }
+        for (int i = 0; i < 50; i++) {
+            counter.increment("cold:" + i, START);
+        }
+
+        assertThat(counter.estimate("hot", START)).isEqualTo(100);
+    }
+}
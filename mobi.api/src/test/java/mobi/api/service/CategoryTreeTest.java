@@ -0,0 +1,85 @@
+package mobi.api.service;
+
+import mobi.api.payload.response.CategoryResponse;
+import mobi.api.payload.response.CategoryTreeResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryTreeTest {
+
+    private static CategoryResponse category(long id, Long parentId) {
+        return new CategoryResponse(id, "c" + id, null, parentId);
+    }
+
+    /**
+     * 1 ─┬─ 2 ─── 4
+     *    └─ 3
+     * 5
+     * Con được khai báo trước cha để kiểm tra việc dựng không phụ thuộc thứ tự đầu vào.
+     */
+    private static CategoryTree sampleTree() {
+        return new CategoryTree(List.of(category(4, 2L), category(2, 1L), category(1, null), category(3, 1L), category(5, null)));
+    }
+
+    @Test
+    void descendantsAreContiguousPreorderRanges() {
+        CategoryTree tree = sampleTree();
+
+        assertThat(tree.descendantIds(1L)).containsExactly(1L, 2L, 4L, 3L);
+        assertThat(tree.descendantIds(2L)).containsExactly(2L, 4L);
+        assertThat(tree.descendantIds(4L)).containsExactly(4L);
+        assertThat(tree.descendantIds(5L)).containsExactly(5L);
+        assertThat(tree.descendantIds(99L)).isEmpty();
+    }
+
+    @Test
+    void precomputesAncestorPaths() {
+        CategoryTree tree = sampleTree();
+
+        assertThat(tree.ancestorPath(4L)).extracting(CategoryResponse::getId).containsExactly(1L, 2L, 4L);
+        assertThat(tree.ancestorPath(5L)).extracting(CategoryResponse::getId).containsExactly(5L);
+        assertThat(tree.ancestorPath(99L)).isEmpty();
+    }
+
+    @Test
+    void buildsNestedResponses() {
+        CategoryTree tree = sampleTree();
+
+        List<CategoryTreeResponse> roots = tree.roots();
+        assertThat(roots).extracting(CategoryTreeResponse::getId).containsExactly(1L, 5L);
+        assertThat(roots.get(0).getChildren()).extracting(CategoryTreeResponse::getId).containsExactly(2L, 3L);
+        assertThat(tree.subtree(2L).getChildren()).extracting(CategoryTreeResponse::getId).containsExactly(4L);
+        assertThat(tree.subtree(99L)).isNull();
+    }
+
+    @Test
+    void treatsCyclesAndMissingParentsAsRoots() {
+        // 1 và 2 là cha của nhau; cha của 3 không tồn tại
+        CategoryTree tree = new CategoryTree(List.of(category(1, 2L), category(2, 1L), category(3, 42L)));
+
+        assertThat(tree.size()).isEqualTo(3);
+        assertThat(tree.descendantIds(1L)).containsExactly(1L, 2L);
+        assertThat(tree.descendantIds(2L)).containsExactly(2L);
+        assertThat(tree.descendantIds(3L)).containsExactly(3L);
+        assertThat(tree.subtree(2L).getChildren()).isEmpty();
+    }
+
+    @Test
+    void handlesDeepChains() {
+        int depth = 3_000;
+        List<CategoryResponse> chain = new ArrayList<>(depth);
+        chain.add(category(0, null));
+        for (long id = 1; id < depth; id++) {
+            chain.add(category(id, id - 1));
+        }
+        CategoryTree tree = new CategoryTree(chain);
+
+        assertThat(tree.descendantIds(0L)).hasSize(depth);
+        assertThat(tree.descendantIds((long) depth - 2)).containsExactly((long) depth - 2, (long) depth - 1);
+        assertThat(tree.ancestorPath((long) depth - 1)).hasSize(depth);
+    }
+}
@@ -0,0 +1,164 @@
+package mobi.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mobi.api.cart.CartChanges;
+import mobi.api.cart.CartPersistence;
+import mobi.api.cart.JpaCartStore;
+import mobi.api.kafka.OrderPlacedEvent;
+import mobi.api.repository.ProductRepository;
+import mobi.api.repository.UserRepository;
+import mobi.api.support.MySqlTestDatabase;
+import mobi.model.entity.Product;
+import mobi.model.entity.auth.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đo placeOrder trên MySQL thật với giỏ 1, 50 và 200 mặt hàng: số câu lệnh gửi tới server (biến trạng thái Questions)
+ * không phụ thuộc số mặt hàng; thời gian chỉ còn tăng theo số dòng InnoDB phải ghi/xóa, xa dưới mức tuyến tính.
+ * CSDL lấy từ MySqlTestDatabase (-Dmobi.test.jdbc-url hoặc Docker); bỏ qua khi không có, trừ khi chạy với profile integration-tests.
+ */
+@ExtendWith(MySqlTestDatabase.class)
+@DataJpaTest(properties = {"mobi.cart.store=jpa", "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaCartStore.class, CartPersistence.class, CartService.class, OutboxService.class, JacksonAutoConfiguration.class})
+// placeOrder tự mở transaction; dữ liệu chuẩn bị phải được commit
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutLatencyTest {
+    private static final int[] LINES = {1, 50, 200};
+    private static final int WARMUP = 30;
+    private static final int ITERATIONS = 100;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        MySqlTestDatabase.register(registry, 10);
+    }
+
+    // CartService chỉ cần ProductService cho các thao tác sửa giỏ, không dùng khi đặt hàng
+    @MockBean
+    private ProductService productService;
+
+    @Autowired
+    private JpaCartStore cartStore;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CheckoutService checkoutService;
+    private Long userId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        checkoutService = new CheckoutService(cartService, productRepository, userRepository, outboxService, jdbcTemplate,
+                transactionManager, new SimpleMeterRegistry());
+        String name = UUID.randomUUID().toString().substring(0, 20);
+        userId = userRepository.save(new User(name, name + "@example.com", "secret")).getId();
+        productIds = new ArrayList<>();
+        for (int i = 0; i < LINES[LINES.length - 1]; i++) {
+            productIds.add(productRepository.save(new Product("Product " + i, new BigDecimal("10.00"), null)).getId());
+        }
+    }
+
+    private long questions() {
+        return Long.parseLong(jdbcTemplate.queryForList("SHOW GLOBAL STATUS LIKE 'Questions'").get(0).get("Value").toString());
+    }
+
+    /**
+     * Số câu lệnh server nhận được trong một lần đặt hàng (trừ câu đọc trạng thái), giỏ lines mặt hàng.
+     */
+    private long statementsPerCheckout(int lines) {
+        fillCart(lines);
+        long before = questions();
+        checkoutService.placeOrder(userId);
+        return questions() - before - 1;
+    }
+
+    private void fillCart(int lines) {
+        CartChanges changes = new CartChanges();
+        for (Long productId : productIds.subList(0, lines)) {
+            changes.add(productId, 2);
+        }
+        cartStore.apply(userId, changes);
+    }
+
+    /**
+     * Đặt hàng iterations lần với giỏ lines mặt hàng (đổ giỏ không tính vào thời gian).
+     *
+     * @return Thời gian từng lần đặt hàng, ns, đã sắp xếp.
+     */
+    private long[] measure(int lines, int iterations) {
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            fillCart(lines);
+            long start = System.nanoTime();
+            Optional<OrderPlacedEvent> placed = checkoutService.placeOrder(userId);
+            nanos[i] = System.nanoTime() - start;
+            assertThat(placed).hasValueSatisfying(event -> assertThat(event.getItemCount()).isEqualTo(lines));
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    @Test
+    void statementCountIsConstantAndLatencySublinearInCartSize() {
+        for (int lines : LINES) {
+            measure(lines, WARMUP);
+        }
+
+        Map<Integer, long[]> results = new LinkedHashMap<>();
+        for (int lines : LINES) {
+            results.put(lines, measure(lines, ITERATIONS));
+        }
+
+        results.forEach((lines, nanos) -> System.out.printf("checkout lines=%3d  p50=%6.2f ms  p95=%6.2f ms  p99=%6.2f ms%n",
+                lines, millis(nanos, 0.50), millis(nanos, 0.95), millis(nanos, 0.99)));
+        Integer items = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.user_id = ?", Integer.class, userId);
+        assertThat(items).isEqualTo((WARMUP + ITERATIONS) * Arrays.stream(LINES).sum());
+
+        long statements = statementsPerCheckout(1);
+        System.out.printf("checkout statements per order: %d%n", statements);
+        assertThat(statementsPerCheckout(50)).isEqualTo(statements);
+        assertThat(statementsPerCheckout(200)).isEqualTo(statements);
+        // Mỗi mặt hàng một câu lệnh sẽ chậm cỡ 200 lần; nới rộng cho máy CI ồn
+        assertThat(millis(results.get(200), 0.50)).isLessThan(10 * millis(results.get(1), 0.50));
+    }
+}
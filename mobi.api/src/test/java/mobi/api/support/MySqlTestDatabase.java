@@ -0,0 +1,68 @@
+package mobi.api.support;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+/**
+ * CSDL MySQL thật cho các test tải/tích hợp, chọn theo thứ tự:
+ * 1. CSDL có sẵn qua system property mobi.test.jdbc-url (kèm mobi.test.jdbc-username, mobi.test.jdbc-password);
+ * 2. container mysql:8.0 (Testcontainers) khi có Docker, dùng chung cho mọi lớp test trong JVM;
+ * 3. không có cả hai: bỏ qua test, hoặc làm test thất bại khi mobi.test.require-database=true (profile integration-tests).
+ * Dùng bằng @ExtendWith(MySqlTestDatabase.class) và gọi {@link #register} trong @DynamicPropertySource.
+ */
+public class MySqlTestDatabase implements BeforeAllCallback {
+    public static final String JDBC_URL = "mobi.test.jdbc-url";
+    public static final String JDBC_USERNAME = "mobi.test.jdbc-username";
+    public static final String JDBC_PASSWORD = "mobi.test.jdbc-password";
+    public static final String REQUIRE_DATABASE = "mobi.test.require-database";
+
+    private static MySQLContainer<?> container;
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (System.getProperty(JDBC_URL) != null || DockerClientFactory.instance().isDockerAvailable()) {
+            return;
+        }
+        String message = "No MySQL for " + context.getDisplayName() + ": set -D" + JDBC_URL + " or provide Docker";
+        if (Boolean.getBoolean(REQUIRE_DATABASE)) {
+            throw new IllegalStateException(message);
+        }
+        Assumptions.abort(message);
+    }
+
+    /**
+     * Đăng ký datasource (bật rewriteBatchedStatements như cấu hình chạy thật) và kích thước pool.
+     */
+    public static void register(DynamicPropertyRegistry registry, int maxPoolSize) {
+        String url = System.getProperty(JDBC_URL);
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> withBatchRewrite(url));
+            registry.add("spring.datasource.username", () -> System.getProperty(JDBC_USERNAME, "root"));
+            registry.add("spring.datasource.password", () -> System.getProperty(JDBC_PASSWORD, ""));
+        } else {
+            registry.add("spring.datasource.url", () -> withBatchRewrite(container().getJdbcUrl()));
+            registry.add("spring.datasource.username", () -> container().getUsername());
+            registry.add("spring.datasource.password", () -> container().getPassword());
+        }
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> maxPoolSize);
+    }
+
+    private static synchronized MySQLContainer<?> container() {
+        if (container == null) {
+            container = new MySQLContainer<>("mysql:8.0");
+            container.start();
+        }
+        return container;
+    }
+
+    private static String withBatchRewrite(String url) {
+        if (url.contains("rewriteBatchedStatements")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+    }
+}
@@ -27,6 +27,10 @@ export class AuthService {
   }
 
   logout() {
+    // Thu hồi token phía server; phiên phía client được xóa ngay, không chờ kết quả
+    if (this.isAuthenticated()) {
+      this.http.post(`${environment.apiBaseUrl}/auth/signout`, {}).subscribe({ error: () => {} });
+    }
     localStorage.removeItem(TOKEN_KEY);
     this.user.set(null);
   }
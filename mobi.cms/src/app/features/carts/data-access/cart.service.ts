@@ -0,0 +1,24 @@
+import { inject, Injectable } from '@angular/core';
+import { HttpClient } from '@angular/common/http';
+import { environment } from '../../../../environments/environment';
+import { Cart } from '../../../shared/models/Cart';
+
+export interface CartOperation {
+  type: 'ADD' | 'SET' | 'REMOVE';
+  productId: number;
+  quantity?: number; // Bắt buộc với ADD và SET
+}
+
+@Injectable({ providedIn: 'root' })
+export class CartService {
+  private readonly http = inject(HttpClient);
+
+  getCart() {
+    return this.http.get<Cart>(`${environment.apiBaseUrl}/cart`);
+  }
+
+  // Gửi mọi thay đổi của giỏ trong một request thay vì mỗi sản phẩm một request
+  applyBatch(operations: CartOperation[]) {
+    return this.http.post<Cart>(`${environment.apiBaseUrl}/cart/batch`, { operations });
+  }
+}
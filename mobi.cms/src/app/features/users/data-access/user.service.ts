@@ -0,0 +1,25 @@
+import { inject, Injectable } from '@angular/core';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { environment } from '../../../../environments/environment';
+import { UserPage } from '../../../shared/models/UserPage';
+
+export interface UserFilter {
+  role?: string; // "ROLE_USER" | "ROLE_ADMIN"
+  username?: string; // Tiền tố username
+  emailDomain?: string;
+}
+
+@Injectable({ providedIn: 'root' })
+export class UserService {
+  private readonly http = inject(HttpClient);
+
+  // Phân trang keyset: truyền nextCursor của trang trước, không dùng số trang
+  list(filter: UserFilter, cursor: string | null, size = 20) {
+    let params = new HttpParams().set('size', size);
+    if (filter.role) params = params.set('role', filter.role);
+    if (filter.username) params = params.set('username', filter.username);
+    if (filter.emailDomain) params = params.set('emailDomain', filter.emailDomain);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<UserPage>(`${environment.apiBaseUrl}/users`, { params });
+  }
+}
@@ -1,11 +1,68 @@
-import { Component } from '@angular/core';
+import { Component, inject, OnInit, signal } from '@angular/core';
+import { FormsModule } from '@angular/forms';
+import { CommonModule } from '@angular/common';
+import { User } from '../../../../shared/models/User';
+import { UserFilter, UserService } from '../../data-access/user.service';
 
 @Component({
   selector: 'app-user-list',
-  imports: [],
+  imports: [FormsModule, CommonModule],
   templateUrl: './user-list.html',
   styleUrl: './user-list.scss'
 })
-export class UserList {
+export class UserList implements OnInit {
+  private readonly userService = inject(UserService);
 
+  users = signal<User[]>([]);
+  loading = signal(false);
+  error = signal('');
+  hasMore = signal(false);
+  filter: UserFilter = { role: '', username: '', emailDomain: '' };
+
+  // Cursor của trang hiện tại và các trang trước (để quay lại), trang đầu là null
+  private cursors: (string | null)[] = [null];
+  private nextCursor: string | null = null;
+
+  ngOnInit() {
+    this.load();
+  }
+
+  search() {
+    this.cursors = [null];
+    this.load();
+  }
+
+  next() {
+    if (!this.nextCursor) return;
+    this.cursors.push(this.nextCursor);
+    this.load();
+  }
+
+  previous() {
+    if (this.cursors.length <= 1) return;
+    this.cursors.pop();
+    this.load();
+  }
+
+  hasPrevious() {
+    return this.cursors.length > 1;
+  }
+
+  private load() {
+    this.loading.set(true);
+    this.error.set('');
+    this.userService.list(this.filter, this.cursors[this.cursors.length - 1]).subscribe({
+      next: (page) => {
+        this.users.set(page.items);
+        this.hasMore.set(page.hasMore);
+        this.nextCursor = page.nextCursor;
+        this.loading.set(false);
+      },
+      error: (err) => {
+        this.loading.set(false);
+        this.error.set('Không tải được danh sách người dùng');
+        console.log(err);
+      },
+    });
+  }
 }
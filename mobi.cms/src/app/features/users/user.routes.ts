@@ -1,3 +1,5 @@
 import { Routes } from "@angular/router";
 
-export const USER_ROUTES:Routes = [];
\ No newline at end of file
+export const USER_ROUTES: Routes = [
+    { path: '', loadComponent: () => import('./ui/user-list/user-list').then(m => m.UserList) },
+];
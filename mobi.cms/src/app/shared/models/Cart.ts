@@ -0,0 +1,7 @@
+import { CartItem } from './CartItem';
+
+export interface Cart {
+  items: CartItem[];
+  itemCount: number; // Tổng số lượng
+  grandTotal: number; // Tính ở server
+}
@@ -2,5 +2,5 @@ export interface Category {
   id: number;
   name: string;
   description?: string;
-  parentCategory?: Category; // tự tham chiếu (danh mục cha)
+  parentId?: number; // id của danh mục cha (null nếu là danh mục gốc)
 }
@@ -1,9 +1,7 @@
-import { Product } from './Product';
-
 export interface OrderItem {
   id: number;
+  productId: number;
+  productName: string;
   quantity: number;
   priceAtPurchase: number; // BigDecimal -> number
-  product: Product;
-  // ⚠️ Không nên include cả Order để tránh vòng lặp JSON
 }
@@ -1,9 +1,6 @@
-import { Role } from './Role';
-
 export interface User {
   id: number;
   username: string;
   email: string;
-  password?: string; // optional, thường không trả về từ API
-  roles: Role[];
+  roles: string[]; // Ví dụ: "ROLE_USER", "ROLE_ADMIN"
 }
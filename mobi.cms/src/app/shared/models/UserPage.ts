@@ -0,0 +1,7 @@
+import { User } from './User';
+
+export interface UserPage {
+  items: User[];
+  nextCursor: string | null; // Cursor mờ, gửi lại để lấy trang kế tiếp
+  hasMore: boolean;
+}
@@ -0,0 +1,79 @@
+package mobi.common.probabilistic;
+
+/*
+ * Bloom filter có hạn dùng cho từng phần tử, ghép từ nhiều BloomFilter theo "ngăn thời gian".
+ * Phần tử hết hạn lúc t được thêm vào ngăn của khoảng [t / slice] (vòng tròn theo số ngăn); một ngăn được xóa trắng
+ * khi mọi phần tử trong đó đã hết hạn và trước khi được dùng lại cho khoảng thời gian mới.
+ * Với maxLifetime = thời hạn dài nhất của phần tử, số ngăn = ceil(maxLifetime / slice) + 2 nên các ngăn còn hiệu lực không bao giờ trùng nhau.
+ *
+ * mightContain() đọc không khóa (kiểm tra lần lượt các ngăn); put() và rotate() đồng bộ hóa vì hiếm khi xảy ra.
+ * */
+public class ExpiringBloomFilter {
+    private final BloomFilter[] slots;
+    // Khoảng thời gian mà từng ngăn đang chứa (-1 = trống)
+    private final long[] slotBuckets;
+    private final long sliceMillis;
+    private final long maxLifetimeMillis;
+
+    /**
+     * @param maxLifetimeMillis     Thời hạn dài nhất của một phần tử (ms).
+     * @param sliceMillis           Độ rộng mỗi ngăn (ms); nhỏ hơn thì giải phóng sớm hơn nhưng tốn thêm ngăn.
+     * @param expectedPerSlice      Số phần tử dự kiến mỗi ngăn.
+     * @param falsePositiveRate     Tỉ lệ dương tính giả mong muốn của mỗi ngăn.
+     */
+    public ExpiringBloomFilter(long maxLifetimeMillis, long sliceMillis, long expectedPerSlice, double falsePositiveRate) {
+        this.sliceMillis = sliceMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        int slotCount = (int) ((maxLifetimeMillis + sliceMillis - 1) / sliceMillis) + 2;
+        this.slots = new BloomFilter[slotCount];
+        this.slotBuckets = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new BloomFilter(expectedPerSlice, falsePositiveRate);
+            slotBuckets[i] = -1;
+        }
+    }
+
+    /**
+     * Thêm phần tử, tự bị loại sau thời điểm expiresAtMillis. Phần tử đã hết hạn bị bỏ qua;
+     * hạn quá maxLifetime được cắt về maxLifetime.
+     */
+    public synchronized void put(String value, long expiresAtMillis, long nowMillis) {
+        if (expiresAtMillis <= nowMillis) {
+            return;
+        }
+        long expiry = Math.min(expiresAtMillis, nowMillis + maxLifetimeMillis);
+        rotate(nowMillis);
+        long bucket = expiry / sliceMillis;
+        int slot = (int) (bucket % slots.length);
+        if (slotBuckets[slot] != bucket) {
+            // Ngăn đã được rotate() xóa trắng; chỉ cần gán khoảng thời gian mới
+            slotBuckets[slot] = bucket;
+        }
+        slots[slot].put(value);
+    }
+
+    /**
+     * @return false nếu phần tử chắc chắn không có (hoặc đã hết hạn từ lâu), true nếu có thể có.
+     */
+    public boolean mightContain(String value) {
+        for (BloomFilter slot : slots) {
+            if (slot.mightContain(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Xóa các ngăn mà mọi phần tử đã hết hạn. Gọi định kỳ (put() cũng tự gọi).
+     */
+    public synchronized void rotate(long nowMillis) {
+        long currentBucket = nowMillis / sliceMillis;
+        for (int i = 0; i < slots.length; i++) {
+            if (slotBuckets[i] >= 0 && slotBuckets[i] < currentBucket) {
+                slots[i].clear();
+                slotBuckets[i] = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package mobi.common.search;
+
+/*
+ * Một kết quả tìm kiếm: id tài liệu (ví dụ id sản phẩm) và điểm BM25.
+ * */
+public final class SearchHit {
+    private final long id;
+    private final float score;
+
+    public SearchHit(long id, float score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHit{" +
+                "id=" + id +
+                ", score=" + score +
+                '}';
+    }
+}
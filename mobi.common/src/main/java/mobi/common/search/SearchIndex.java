@@ -0,0 +1,335 @@
+package mobi.common.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Chỉ mục đảo ngược (inverted index) trong bộ nhớ, xếp hạng kết quả bằng BM25.
+ * Mỗi tài liệu gồm nhiều trường (ví dụ: tên, danh mục, mô tả), mỗi trường có trọng số riêng;
+ * tần suất từ và độ dài tài liệu được cộng theo trọng số (xấp xỉ BM25F).
+ *
+ * Cập nhật là tăng dần: index() thay thế tài liệu cũ cùng id, remove() đánh dấu xóa (tombstone).
+ * Khi số tài liệu đã xóa vượt ngưỡng, chỉ mục được nén lại để postings không phình ra.
+ * Đọc song song nhiều luồng, ghi độc quyền (ReentrantReadWriteLock).
+ * */
+public class SearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_POOLED_ACCUMULATORS = Runtime.getRuntime().availableProcessors();
+
+    private final float[] fieldWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Bộ đệm tính điểm dùng lại giữa các truy vấn để tránh cấp phát mảng lớn cho mỗi truy vấn;
+    // giữ tối đa MAX_POOLED_ACCUMULATORS bộ, bộ dư hoặc quá lớn so với chỉ mục (sau khi nén) được bỏ cho GC
+    private final ArrayBlockingQueue<Accumulator> accumulators = new ArrayBlockingQueue<>(MAX_POOLED_ACCUMULATORS);
+
+    // Từ điển: từ -> termId, postings được đánh chỉ số theo termId
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private Postings[] postings = new Postings[INITIAL_CAPACITY];
+    private int termCount;
+
+    // Thông tin theo số hiệu tài liệu nội bộ (doc); docLengths < 0 nghĩa là đã xóa
+    private final Map<Long, Integer> docByExternalId = new HashMap<>();
+    private long[] externalIds = new long[INITIAL_CAPACITY];
+    private float[] docLengths = new float[INITIAL_CAPACITY];
+    private int[][] docTerms = new int[INITIAL_CAPACITY][];
+    private int maxDoc;
+    private int liveDocs;
+    private int deletedDocs;
+    private double totalLength;
+
+    /**
+     * @param fieldWeights Trọng số của từng trường, theo đúng thứ tự các trường truyền vào index().
+     */
+    public SearchIndex(float... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /**
+     * Thêm hoặc thay thế một tài liệu.
+     *
+     * @param id     Id bên ngoài của tài liệu.
+     * @param fields Nội dung các trường (có thể null), cùng thứ tự với trọng số.
+     */
+    public void index(long id, String... fields) {
+        Map<String, Float> frequencies = new LinkedHashMap<>();
+        float length = 0;
+        for (int f = 0; f < fields.length && f < fieldWeights.length; f++) {
+            float weight = fieldWeights[f];
+            for (String token : TextNormalizer.tokenize(fields[f])) {
+                frequencies.merge(token, weight, Float::sum);
+                length += weight;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (removeInternal(id)) {
+                compactIfNeeded();
+            }
+            int doc = maxDoc++;
+            ensureDocCapacity(maxDoc);
+            int[] terms = new int[frequencies.size()];
+            int t = 0;
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                int termId = termIdFor(entry.getKey());
+                postings[termId].add(doc, entry.getValue());
+                terms[t++] = termId;
+            }
+            externalIds[doc] = id;
+            docLengths[doc] = length;
+            docTerms[doc] = terms;
+            docByExternalId.put(id, doc);
+            totalLength += length;
+            liveDocs++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa một tài liệu khỏi chỉ mục.
+     *
+     * @param id Id bên ngoài của tài liệu.
+     * @return true nếu tài liệu tồn tại và đã được xóa.
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = removeInternal(id);
+            if (removed) {
+                compactIfNeeded();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm và trả về tối đa limit kết quả có điểm BM25 cao nhất (từ cao đến thấp).
+     * Truy vấn được chuẩn hóa giống tài liệu nên "dien thoai" khớp với "điện thoại".
+     *
+     * @param query Chuỗi truy vấn.
+     * @param limit Số kết quả tối đa.
+     * @return Danh sách kết quả đã xếp hạng.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            Accumulator acc = accumulators.poll();
+            if (acc == null) {
+                acc = new Accumulator();
+            }
+            acc.ensureCapacity(maxDoc);
+            float averageLength = (float) (totalLength / liveDocs);
+
+            for (String token : tokens.stream().distinct().toList()) {
+                Integer termId = termIds.get(token);
+                if (termId == null) {
+                    continue;
+                }
+                Postings p = postings[termId];
+                float idf = (float) Math.log(1 + (liveDocs - p.live + 0.5) / (p.live + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docs[i];
+                    float length = docLengths[doc];
+                    if (length < 0) {
+                        continue;
+                    }
+                    float tf = p.freqs[i];
+                    float score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    acc.add(doc, score);
+                }
+            }
+            List<SearchHit> hits = acc.drainTopK(limit, externalIds);
+            if (acc.capacity() <= 2 * Math.max(maxDoc, INITIAL_CAPACITY)) {
+                accumulators.offer(acc);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Số tài liệu hiện có trong chỉ mục.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeInternal(long id) {
+        Integer doc = docByExternalId.remove(id);
+        if (doc == null) {
+            return false;
+        }
+        for (int termId : docTerms[doc]) {
+            postings[termId].live--;
+        }
+        totalLength -= docLengths[doc];
+        docLengths[doc] = -1;
+        docTerms[doc] = null;
+        liveDocs--;
+        deletedDocs++;
+        return true;
+    }
+
+    private int termIdFor(String term) {
+        Integer termId = termIds.get(term);
+        if (termId != null) {
+            return termId;
+        }
+        if (termCount == postings.length) {
+            postings = Arrays.copyOf(postings, termCount * 2);
+        }
+        postings[termCount] = new Postings();
+        termIds.put(term, termCount);
+        return termCount++;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > externalIds.length) {
+            int newLength = Math.max(capacity, externalIds.length * 2);
+            externalIds = Arrays.copyOf(externalIds, newLength);
+            docLengths = Arrays.copyOf(docLengths, newLength);
+            docTerms = Arrays.copyOf(docTerms, newLength);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedDocs > INITIAL_CAPACITY && deletedDocs > maxDoc / 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Đánh số lại các tài liệu còn sống và loại bỏ postings của tài liệu đã xóa.
+     * Ánh xạ đánh số lại là đơn điệu nên postings vẫn giữ thứ tự tăng dần.
+     */
+    private void compact() {
+        int[] remap = new int[maxDoc];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (docLengths[doc] < 0) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                externalIds[next] = externalIds[doc];
+                docLengths[next] = docLengths[doc];
+                docTerms[next] = docTerms[doc];
+                docByExternalId.put(externalIds[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(docTerms, next, maxDoc, null);
+        for (int termId = 0; termId < termCount; termId++) {
+            postings[termId].remap(remap);
+        }
+        maxDoc = next;
+        deletedDocs = 0;
+    }
+
+    /**
+     * Danh sách (doc, tần suất có trọng số) của một từ, doc tăng dần.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] freqs = new float[4];
+        private int size;
+        // Số tài liệu còn sống chứa từ này (document frequency)
+        private int live;
+
+        private void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            live++;
+        }
+
+        private void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * Bộ cộng dồn điểm theo doc. Điểm BM25 luôn dương nên score == 0 nghĩa là doc chưa được chạm tới.
+     */
+    private static final class Accumulator {
+        private float[] scores = new float[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        private void ensureCapacity(int capacity) {
+            if (scores.length < capacity) {
+                int newLength = Math.max(capacity, scores.length * 2);
+                scores = new float[newLength];
+                touched = new int[newLength];
+            }
+        }
+
+        private int capacity() {
+            return scores.length;
+        }
+
+        private void add(int doc, float score) {
+            if (scores[doc] == 0) {
+                touched[touchedCount++] = doc;
+            }
+            scores[doc] += score;
+        }
+
+        private List<SearchHit> drainTopK(int limit, long[] externalIds) {
+            PriorityQueue<SearchHit> heap = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.getScore(), b.getScore()));
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                float score = scores[doc];
+                scores[doc] = 0;
+                if (heap.size() < limit) {
+                    heap.add(new SearchHit(externalIds[doc], score));
+                } else if (score > heap.peek().getScore()) {
+                    heap.poll();
+                    heap.add(new SearchHit(externalIds[doc], score));
+                }
+            }
+            touchedCount = 0;
+            List<SearchHit> hits = new ArrayList<>(heap);
+            hits.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+            return hits;
+        }
+    }
+}
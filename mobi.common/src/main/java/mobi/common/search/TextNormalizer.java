@@ -0,0 +1,64 @@
+package mobi.common.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Lớp tiện ích chuẩn hóa văn bản cho tìm kiếm: chữ thường, bỏ dấu tiếng Việt và tách từ.
+ * Ví dụ: "Điện Thoại" -> "dien thoai".
+ * */
+public final class TextNormalizer {
+    private TextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu và chuyển về chữ thường. NFD tách dấu thành ký tự kết hợp (combining mark) để loại bỏ,
+     * riêng "đ" không có dạng tách nên được thay thế trực tiếp.
+     *
+     * @param text Văn bản gốc.
+     * @return Văn bản đã bỏ dấu, chữ thường.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Bỏ dấu rồi tách văn bản thành các từ (chuỗi liên tiếp chữ cái hoặc chữ số).
+     *
+     * @param text Văn bản gốc.
+     * @return Danh sách từ theo thứ tự xuất hiện (có thể trùng lặp).
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+}
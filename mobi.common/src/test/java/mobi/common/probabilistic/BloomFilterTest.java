@@ -0,0 +1,57 @@
+package mobi.common.probabilistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void murmur3MatchesReferenceVectors() {
+        assertArrayEquals(new long[]{0L, 0L}, BloomFilter.murmur3(""));
+        assertArrayEquals(new long[]{0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L}, BloomFilter.murmur3("hello"));
+    }
+
+    @Test
+    void sizesFromExpectedInsertionsAndRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // m = -n ln p / (ln 2)^2 ≈ 95851 bit, làm tròn lên bội số của 64; k = m / n * ln 2 ≈ 7
+        assertEquals(95_872, filter.bitSize());
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void hasNoFalseNegativesAndRoughlyTheConfiguredFalsePositiveRate() {
+        int n = 10_000;
+        BloomFilter filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.put("a");
+        filter.clear();
+
+        assertFalse(filter.mightContain("a"));
+    }
+}
@@ -0,0 +1,78 @@
+package mobi.common.probabilistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringBloomFilterTest {
+    private static final long SLICE = 1000;
+    private static final long LIFETIME = 10 * SLICE;
+
+    private static ExpiringBloomFilter newFilter() {
+        return new ExpiringBloomFilter(LIFETIME, SLICE, 1000, 0.001);
+    }
+
+    @Test
+    void keepsElementsUntilTheirSliceHasFullyExpired() {
+        ExpiringBloomFilter filter = newFilter();
+        long now = 100_000;
+        // Hết hạn giữa ngăn [103000, 104000)
+        filter.put("a", now + 3500, now);
+
+        filter.rotate(now + 3500);
+        assertTrue(filter.mightContain("a"));
+        // Ngăn chỉ bị xóa khi mọi phần tử trong đó đã hết hạn
+        filter.rotate(now + 3999);
+        assertTrue(filter.mightContain("a"));
+        filter.rotate(now + 4000);
+        assertFalse(filter.mightContain("a"));
+    }
+
+    @Test
+    void rotationOnlyClearsExpiredSlices() {
+        ExpiringBloomFilter filter = newFilter();
+        long now = 100_000;
+        filter.put("short", now + SLICE, now);
+        filter.put("long", now + 8 * SLICE, now);
+
+        filter.rotate(now + 3 * SLICE);
+        assertFalse(filter.mightContain("short"));
+        assertTrue(filter.mightContain("long"));
+    }
+
+    @Test
+    void reusesSlotsAcrossManyLifetimes() {
+        ExpiringBloomFilter filter = newFilter();
+        long now = 100_000;
+        for (int round = 0; round < 50; round++) {
+            long t = now + round * SLICE;
+            filter.put("item-" + round, t + LIFETIME, t);
+        }
+        long end = now + 49 * SLICE;
+
+        // Các phần tử còn hạn vẫn có; phần tử hết hạn từ lâu đã bị loại khi ngăn được dùng lại
+        for (int round = 40; round < 50; round++) {
+            assertTrue(filter.mightContain("item-" + round));
+        }
+        filter.rotate(end);
+        for (int round = 0; round < 38; round++) {
+            assertFalse(filter.mightContain("item-" + round));
+        }
+    }
+
+    @Test
+    void ignoresExpiredElementsAndCapsLifetime() {
+        ExpiringBloomFilter filter = newFilter();
+        long now = 100_000;
+        filter.put("expired", now, now);
+        assertFalse(filter.mightContain("expired"));
+
+        // Hạn quá maxLifetime bị cắt về now + maxLifetime
+        filter.put("forever", Long.MAX_VALUE, now);
+        filter.rotate(now + LIFETIME - 1);
+        assertTrue(filter.mightContain("forever"));
+        filter.rotate(now + LIFETIME + SLICE);
+        assertFalse(filter.mightContain("forever"));
+    }
+}
@@ -0,0 +1,82 @@
+package mobi.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).toList();
+    }
+
+    @Test
+    void matchesQueriesWithoutDiacritics() {
+        SearchIndex index = new SearchIndex(3.0f, 1.0f);
+        index.index(1, "Điện thoại Samsung", "Điện thoại");
+        index.index(2, "Tai nghe Sony", "Phụ kiện");
+
+        assertEquals(List.of(1L), ids(index.search("dien thoai", 10)));
+        assertEquals(List.of(2L), ids(index.search("PHỤ KIỆN", 10)));
+        assertTrue(index.search("laptop", 10).isEmpty());
+    }
+
+    @Test
+    void ranksHeavierFieldsFirst() {
+        SearchIndex index = new SearchIndex(3.0f, 1.0f);
+        index.index(1, "Ốp lưng", "dành cho iphone");
+        index.index(2, "iPhone 15", "điện thoại");
+
+        assertEquals(List.of(2L, 1L), ids(index.search("iphone", 10)));
+        assertEquals(List.of(2L), ids(index.search("iphone", 1)));
+    }
+
+    @Test
+    void replacesAndRemovesDocuments() {
+        SearchIndex index = new SearchIndex(1.0f);
+        index.index(1, "máy tính bảng");
+        index.index(1, "đồng hồ");
+
+        assertTrue(index.search("bang", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("dong ho", 10)));
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertTrue(index.search("dong ho", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void keepsResultsCorrectAfterCompaction() {
+        SearchIndex index = new SearchIndex(1.0f);
+        int count = 4000;
+        for (long id = 0; id < count; id++) {
+            index.index(id, (id % 2 == 0 ? "chan " : "le ") + "sanpham" + id);
+        }
+        // Xóa đủ nhiều để vượt ngưỡng nén (hơn 1024 và hơn 1/4 số tài liệu)
+        for (long id = 0; id < count; id += 4) {
+            index.remove(id);
+        }
+        for (long id = 1; id < count; id += 4) {
+            index.remove(id);
+        }
+
+        assertEquals(count / 2, index.size());
+        assertTrue(index.search("sanpham0", 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("sanpham2", 10)));
+        assertEquals(List.of(3999L), ids(index.search("sanpham3999", 10)));
+        List<SearchHit> even = index.search("chan", count);
+        assertEquals(count / 4, even.size());
+        assertTrue(even.stream().allMatch(hit -> hit.getId() % 4 == 2));
+
+        // Tài liệu mới sau khi nén nhận số hiệu mới và vẫn tìm được
+        index.index(5000, "chan sanpham5000");
+        assertEquals(List.of(5000L), ids(index.search("sanpham5000", 10)));
+        assertEquals(count / 4 + 1, index.search("chan", count).size());
+    }
+}
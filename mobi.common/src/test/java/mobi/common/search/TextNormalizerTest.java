@@ -0,0 +1,24 @@
+package mobi.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    @Test
+    void foldsVietnameseDiacriticsAndCase() {
+        assertEquals("dien thoai", TextNormalizer.fold("Điện Thoại"));
+        assertEquals("may tinh bang", TextNormalizer.fold("MÁY TÍNH BẢNG"));
+        assertEquals("", TextNormalizer.fold(null));
+    }
+
+    @Test
+    void splitsOnNonAlphanumericCharacters() {
+        assertEquals(List.of("iphone", "15", "pro", "max", "256gb"), TextNormalizer.tokenize("iPhone 15 Pro-Max (256GB)"));
+        assertEquals(List.of("op", "lung", "op", "lung"), TextNormalizer.tokenize("Ốp lưng, ốp lưng!"));
+        assertEquals(List.of(), TextNormalizer.tokenize("  ...  "));
+    }
+}
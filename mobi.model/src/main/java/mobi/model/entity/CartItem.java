@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
  * Entity đại diện cho một mặt hàng trong giỏ hàng của người dùng.
  */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+        // Mỗi sản phẩm chỉ có một dòng trong giỏ của một người dùng; là khóa cho upsert ON DUPLICATE KEY UPDATE
+        @UniqueConstraint(name = "uk_cart_items_user_product", columnNames = {"user_id", "product_id"})
+}, indexes = {
+        // Quét giỏ bỏ quên theo khoảng thời gian (keyset trên (updated_at, id))
+        @Index(name = "idx_cart_items_updated_at_id", columnList = "updated_at, id")
+})
 public class CartItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
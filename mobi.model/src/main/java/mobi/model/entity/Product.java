@@ -5,7 +5,13 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Hỗ trợ phân trang keyset theo danh mục và theo các kiểu sắp xếp (price, id) / (name, id)
+        @Index(name = "idx_products_category_id", columnList = "category_id, id"),
+        @Index(name = "idx_products_category_price_id", columnList = "category_id, price, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
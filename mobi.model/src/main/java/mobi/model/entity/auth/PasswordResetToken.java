@@ -9,18 +9,23 @@ import java.util.UUID;
  * Entity để lưu trữ các token khôi phục mật khẩu.
  */
 @Entity
-@Table(name = "password_reset_tokens")
+@Table(name = "password_reset_tokens", indexes = {
+        // Hỗ trợ dọn token hết hạn theo từng đoạn
+        @Index(name = "idx_password_reset_tokens_expiry_date", columnList = "expiry_date")
+})
 public class PasswordResetToken {
-    private static final int EXPIRATION_TIME = 60 * 24; // Hạn sử dụng: 24 giờ
+    private static final long EXPIRATION_TIME = 24L * 60 * 60 * 1000; // Hạn sử dụng: 24 giờ (ms)
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Chỉ lưu hash SHA-256 của token (token gốc chỉ nằm trong email)
     @Column(nullable = false, unique = true)
     private String token;
 
-    @OneToOne(targetEntity = User.class, fetch = FetchType.EAGER)
+    // Một người dùng có thể có nhiều token chưa dùng; không nạp User khi đọc token
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
 
@@ -39,6 +44,12 @@ public class PasswordResetToken {
         this.expiryDate = new Date(System.currentTimeMillis() + EXPIRATION_TIME);
     }
 
+    public PasswordResetToken(User user, String token, Date expiryDate) {
+        this.user = user;
+        this.token = token;
+        this.expiryDate = expiryDate;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -1,6 +1,7 @@
 package mobi.model.entity.auth;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -12,6 +13,8 @@ import java.util.Set;
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(columnNames = "username"),
         @UniqueConstraint(columnNames = "email")
+}, indexes = {
+        @Index(name = "idx_users_email_domain_username", columnList = "email_domain, username")
 })
 public class User {
     @Id
@@ -27,15 +30,26 @@ public class User {
     @Column(nullable = false, length = 50)
     private String email;
 
+    // Tên miền email (phần sau "@"): cột sinh tự động (STORED) để lọc bằng so sánh bằng trên index
+    @Column(name = "email_domain", length = 50, insertable = false, updatable = false,
+            columnDefinition = "varchar(50) GENERATED ALWAYS AS (substring_index(email, '@', -1)) STORED")
+    private String emailDomain;
+
     // Quan hệ Many-to-Many với Role
     // fetch = FetchType.LAZY để tránh tải tất cả các vai trò ngay lập tức
     // CascadeType.ALL là không nên dùng ở đây nếu Role là dữ liệu tĩnh
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id"))
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "idx_user_roles_role_id_user_id", columnList = "role_id, user_id"))
     private Set<Role> roles = new HashSet<>();
 
+    // Phiên bản token: tăng mỗi khi đổi mật khẩu/vai trò/username để thu hồi mọi JWT đã cấp trước đó
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
     // Constructors
     public User() {
     }
@@ -79,6 +93,10 @@ public class User {
         this.email = email;
     }
 
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
     public Set<Role> getRoles() {
         return roles;
     }
@@ -87,6 +105,14 @@ public class User {
         this.roles = roles;
     }
 
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     @Override
     public String toString() {
         return "User{" +